@@ -0,0 +1,150 @@
+package br.com.daniel.autocomplete;
+
+import br.com.daniel.data.dto.NameSuggestionDTO;
+import br.com.daniel.repository.PersonRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+// type-ahead over the names of enabled people, answered from memory: every person sits in a sorted map under
+// "first last" and "last first" (accents, case and punctuation folded), so a prefix is a range of that map found by
+// binary search. Loaded from the database before the web server starts, then kept current by the person writes,
+// each applied once its transaction commits
+@Component
+public class PersonNameIndex implements SmartInitializingSingleton {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern PUNCTUATION = Pattern.compile("[^\\p{L}\\p{N}\\s]+");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+
+    // separates the term from the id in a key: sorts before any character a term can have
+    private static final char SEPARATOR = '\u0000';
+
+    private final Logger logger = LoggerFactory.getLogger(PersonNameIndex.class.getName());
+
+    @Autowired
+    private PersonRepository repository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final NavigableMap<String, NameSuggestionDTO> terms = new ConcurrentSkipListMap<>();
+
+    // what each person is indexed as, to find their keys again on a rename or removal
+    private final Map<Long, NameSuggestionDTO> people = new ConcurrentHashMap<>();
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        long start = System.nanoTime();
+        var readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readOnly.executeWithoutResult(status -> {
+            try (var names = repository.streamNames()) {
+                names.forEach(this::index);
+            }
+        });
+        logger.info("Indexed {} names for autocomplete in {} ms", people.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // prefix of a first name, a last name, or a full name in either order; each person at most once, in the
+    // alphabetical order of the name that matched
+    public List<NameSuggestionDTO> suggest(String prefix, int limit) {
+        String term = normalize(prefix);
+        if (term.isEmpty()) return List.of();
+        List<NameSuggestionDTO> matches = new ArrayList<>(limit);
+        Set<Long> seen = new HashSet<>();
+        for (var person : terms.subMap(term, true, term + Character.MAX_VALUE, false).values()) {
+            if (seen.add(person.getId())) matches.add(person);
+            if (matches.size() == limit) break;
+        }
+        return matches;
+    }
+
+    // the state a write left the person in: disabled people leave the index
+    public void put(Long id, String firstName, String lastName, Boolean enabled) {
+        if (id == null) return;
+        afterCommit(() -> {
+            if (Boolean.FALSE.equals(enabled)) unindex(id);
+            else index(new NameSuggestionDTO(id, firstName, lastName));
+        });
+    }
+
+    // a write that doesn't touch "enabled": only people already in the index are renamed
+    public void rename(Long id, String firstName, String lastName) {
+        afterCommit(() -> {
+            if (people.containsKey(id)) index(new NameSuggestionDTO(id, firstName, lastName));
+        });
+    }
+
+    public void remove(Long id) {
+        afterCommit(() -> unindex(id));
+    }
+
+    public int size() {
+        return people.size();
+    }
+
+    // compute() serializes the writes for one person, so their keys never get out of step
+    private void index(NameSuggestionDTO person) {
+        people.compute(person.getId(), (id, previous) -> {
+            if (previous != null) keys(previous).forEach(terms::remove);
+            keys(person).forEach(key -> terms.put(key, person));
+            return person;
+        });
+    }
+
+    private void unindex(Long id) {
+        people.computeIfPresent(id, (key, previous) -> {
+            keys(previous).forEach(terms::remove);
+            return null;
+        });
+    }
+
+    private static List<String> keys(NameSuggestionDTO person) {
+        String first = normalize(person.getFirstName());
+        String last = normalize(person.getLastName());
+        String suffix = SEPARATOR + person.getId().toString();
+        return List.of(
+                (first + " " + last).strip() + suffix,
+                (last + " " + first).strip() + suffix);
+    }
+
+    public static String normalize(String name) {
+        if (name == null) return "";
+        String folded = MARKS.matcher(Normalizer.normalize(name, Normalizer.Form.NFD)).replaceAll("");
+        folded = PUNCTUATION.matcher(folded).replaceAll("");
+        return SPACES.matcher(folded).replaceAll(" ").strip().toLowerCase(Locale.ROOT);
+    }
+
+    // a rolled back write must not show up in suggestions; outside a transaction the write already happened
+    private static void afterCommit(Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+}
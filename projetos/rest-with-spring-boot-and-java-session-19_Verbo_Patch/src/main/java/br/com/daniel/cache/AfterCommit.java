@@ -0,0 +1,57 @@
+package br.com.daniel.cache;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// cache invalidation for writes: runs now and, inside a transaction, once more when it completes, so a miss that
+// read the old row in between can't leave it cached. On rollback too: a read inside the transaction may have cached
+// the row it was about to write
+public class AfterCommit implements AutoCloseable {
+
+    private final long replicaLag;
+
+    private final ScheduledExecutorService scheduler;
+
+    // with read replicas a miss can still read the old row from a replica that hasn't applied the write: the
+    // eviction runs a last time once the replicas should have caught up (zero without replicas)
+    public AfterCommit(Duration replicaLag) {
+        this.replicaLag = replicaLag.toMillis();
+        this.scheduler = this.replicaLag <= 0 ? null : Executors.newSingleThreadScheduledExecutor(task -> {
+            var thread = new Thread(task, "replica-lag-eviction");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void evict(Runnable eviction) {
+        eviction.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    eviction.run();
+                    if (status == STATUS_COMMITTED) afterReplicaLag(eviction);
+                }
+            });
+        } else {
+            afterReplicaLag(eviction);
+        }
+    }
+
+    private void afterReplicaLag(Runnable eviction) {
+        if (scheduler != null && !scheduler.isShutdown()) {
+            scheduler.schedule(eviction, replicaLag, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // pending re-evictions are dropped with the context: the caches they'd clear go with it
+    @Override
+    public void close() {
+        if (scheduler != null) scheduler.shutdownNow();
+    }
+}
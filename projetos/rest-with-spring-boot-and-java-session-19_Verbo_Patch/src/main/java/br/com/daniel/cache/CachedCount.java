@@ -0,0 +1,38 @@
+package br.com.daniel.cache;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+// a count is kept with the generation it was loaded under: a load that overlaps an invalidate is returned to its
+// caller but never served again
+public class CachedCount {
+
+    private record Loaded(long value, long loadedAt, long generation) {}
+
+    private final long ttlNanos;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private volatile Loaded loaded;
+
+    public CachedCount(Duration ttl) {
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    public long get(LongSupplier loader) {
+        long now = System.nanoTime();
+        long current = generation.get();
+        var cached = loaded;
+        if (cached != null && cached.generation() == current && now - cached.loadedAt() <= ttlNanos) {
+            return cached.value();
+        }
+        long value = loader.getAsLong();
+        if (generation.get() == current) loaded = new Loaded(value, now, current);
+        return value;
+    }
+
+    public void invalidate() {
+        generation.incrementAndGet();
+    }
+}
@@ -0,0 +1,29 @@
+package br.com.daniel.cache;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+
+// eTag/lastModified are the validators the handler sent with the body (null / -1 when it sent none)
+public record CachedResponse(String contentType, String eTag, long lastModified, ByteBuffer body) {
+
+    static CachedResponse of(String contentType, String eTag, long lastModified, byte[] bytes, boolean offHeap) {
+        if (!offHeap) return new CachedResponse(contentType, eTag, lastModified, ByteBuffer.wrap(bytes).asReadOnlyBuffer());
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+        return new CachedResponse(contentType, eTag, lastModified, direct.asReadOnlyBuffer());
+    }
+
+    public int size() {
+        return body.remaining();
+    }
+
+    public void writeTo(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(contentType);
+        response.setContentLength(size());
+        // duplicate: each request reads the shared buffer with its own position
+        Channels.newChannel(response.getOutputStream()).write(body.duplicate());
+    }
+}
@@ -0,0 +1,77 @@
+package br.com.daniel.cache;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+// passes everything through; only after startCapture() the bytes written are also copied aside
+public class CapturingResponseWrapper extends HttpServletResponseWrapper {
+
+    private ByteArrayOutputStream copy;
+    private ServletOutputStream outputStream;
+
+    public CapturingResponseWrapper(HttpServletResponse response) {
+        super(response);
+    }
+
+    public void startCapture() {
+        copy = new ByteArrayOutputStream(1024);
+    }
+
+    public byte[] captured() {
+        return copy == null ? null : copy.toByteArray();
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if (outputStream == null) {
+            ServletOutputStream target = super.getOutputStream();
+            outputStream = new ServletOutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    target.write(b);
+                    if (copy != null) copy.write(b);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    target.write(b, off, len);
+                    if (copy != null) copy.write(b, off, len);
+                }
+
+                @Override
+                public void flush() throws IOException {
+                    target.flush();
+                }
+
+                @Override
+                public void close() throws IOException {
+                    target.close();
+                }
+
+                @Override
+                public boolean isReady() {
+                    return target.isReady();
+                }
+
+                @Override
+                public void setWriteListener(WriteListener listener) {
+                    target.setWriteListener(listener);
+                }
+            };
+        }
+        return outputStream;
+    }
+
+    // character output is not captured: the converters of this API write bytes
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        copy = null;
+        return super.getWriter();
+    }
+}
@@ -0,0 +1,158 @@
+package br.com.daniel.cache;
+
+import br.com.daniel.hateoas.LeanRepresentation;
+import br.com.daniel.hateoas.NegotiatedRepresentation;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+// ready-to-write response bodies of single resources, keyed by resource path and variant (the media type the
+// request negotiates, lean or not). The HATEOAS links are absolute, so only requests on the configured base URI
+// are cached; the variants of a resource are then bounded by what its handler produces. LRU bounded by number
+// of resources with a stored body; every write on a resource evicts all of its variants. Guarded by a lock rather
+// than synchronized: on Java 21 a virtual thread waiting for a monitor pins its carrier, and every request thread
+// goes through here
+@Component
+public class ResponseCache {
+
+    public static final String KEY_ATTRIBUTE = ResponseCache.class.getName() + ".KEY";
+
+    static final int MAX_VARIANTS = 8;
+
+    // generation: the clock when the request was keyed
+    public record Key(String resource, String variant, long generation) {
+    }
+
+    private final boolean enabled;
+    private final boolean offHeap;
+    private final String baseUri;
+    private final AfterCommit afterCommit;
+    private final LinkedHashMap<String, Map<String, CachedResponse>> entries;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // the clock of the last write on each recently written resource: a response keyed before it is never stored,
+    // writes on other resources don't matter. Only writes add to it, reads (of ids that don't exist, say) don't.
+    // Bounded too: a write that falls out of it raises the floor instead, so at worst a response isn't stored
+    private final LinkedHashMap<String, Long> writes;
+
+    private long clock;
+    private long floor;
+
+    public ResponseCache(@Value("${responseCache.enabled:true}") boolean enabled,
+                         @Value("${responseCache.maxEntries:10000}") int maxEntries,
+                         @Value("${responseCache.offHeap:false}") boolean offHeap,
+                         @Value("${responseCache.baseUri:}") String baseUri,
+                         AfterCommit afterCommit) {
+        this.enabled = enabled && !baseUri.isBlank();
+        this.offHeap = offHeap;
+        this.baseUri = baseUri;
+        this.afterCommit = afterCommit;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Map<String, CachedResponse>> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        this.writes = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                if (size() <= maxEntries) return false;
+                floor = Math.max(floor, eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // null when the response can't be shared: another base URI, or an Accept the handler can't produce
+    public Key key(HttpServletRequest request) {
+        if (!baseUri.equals(ServletUriComponentsBuilder.fromContextPath(request).build().toUriString())) return null;
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        MediaType negotiated = NegotiatedRepresentation.mediaType(accept,
+                request.getAttribute(HandlerMapping.PRODUCIBLE_MEDIA_TYPES_ATTRIBUTE));
+        if (negotiated == null) return null;
+        String variant = LeanRepresentation.isLean(accept) ? negotiated + ";profile=" + LeanRepresentation.PROFILE
+                : negotiated.toString();
+        String resource = request.getRequestURI().substring(request.getContextPath().length());
+        lock.lock();
+        try {
+            return new Key(resource, variant, clock);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public CachedResponse get(Key key) {
+        lock.lock();
+        try {
+            var variants = entries.get(key.resource());
+            return variants == null ? null : variants.get(key.variant());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void put(Key key, String contentType, String eTag, long lastModified, byte[] body) {
+        if (!enabled) return;
+        // a handler that answered with another type than the one negotiated here is not stored under it
+        if (contentType == null || !sameFormat(MediaType.parseMediaType(key.variant()), MediaType.parseMediaType(contentType))) {
+            return;
+        }
+        // copied (off heap too) before taking the lock
+        var response = CachedResponse.of(contentType, eTag, lastModified, body, offHeap);
+        lock.lock();
+        try {
+            var written = writes.get(key.resource());
+            if (key.generation() < floor || (written != null && written > key.generation())) return;
+            var variants = entries.computeIfAbsent(key.resource(), path -> new HashMap<>(4));
+            if (variants.size() < MAX_VARIANTS || variants.containsKey(key.variant())) {
+                variants.put(key.variant(), response);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // application/json negotiated, application/hal+json written
+    private static boolean sameFormat(MediaType negotiated, MediaType written) {
+        return negotiated.isCompatibleWith(written) || (negotiated.getType().equals(written.getType())
+                && negotiated.getSubtype().equals(written.getSubtypeSuffix()));
+    }
+
+    // inside a transaction the entry is dropped again when it completes: a miss that read the old row in between
+    // would otherwise be stored
+    public void evict(String resource) {
+        afterCommit.evict(() -> remove(resource));
+    }
+
+    private void remove(String resource) {
+        lock.lock();
+        try {
+            writes.put(resource, ++clock);
+            entries.remove(resource);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
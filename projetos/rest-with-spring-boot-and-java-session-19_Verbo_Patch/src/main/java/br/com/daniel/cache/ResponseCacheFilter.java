@@ -0,0 +1,42 @@
+package br.com.daniel.cache;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+// wraps GET responses so ResponseCacheInterceptor can capture a miss; stores the body once it was a clean 200
+@Component
+public class ResponseCacheFilter extends OncePerRequestFilter {
+
+    @Autowired
+    private ResponseCache cache;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !cache.isEnabled() || !HttpMethod.GET.matches(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        var wrapper = new CapturingResponseWrapper(response);
+        chain.doFilter(request, wrapper);
+
+        byte[] body = wrapper.captured();
+        if (body != null && wrapper.getStatus() == HttpServletResponse.SC_OK
+                && request.getAttribute(ResponseCache.KEY_ATTRIBUTE) instanceof ResponseCache.Key key) {
+            var validators = new HttpHeaders();
+            validators.set(HttpHeaders.LAST_MODIFIED, wrapper.getHeader(HttpHeaders.LAST_MODIFIED));
+            cache.put(key, wrapper.getContentType(), wrapper.getHeader(HttpHeaders.ETAG),
+                    validators.getLastModified(), body);
+        }
+    }
+}
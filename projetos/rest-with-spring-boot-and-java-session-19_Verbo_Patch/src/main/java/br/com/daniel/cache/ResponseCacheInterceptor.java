@@ -0,0 +1,45 @@
+package br.com.daniel.cache;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.util.WebUtils;
+
+// runs after the CORS check of the handler mapping, so a hit is only replayed to an allowed origin
+@Component
+public class ResponseCacheInterceptor implements HandlerInterceptor {
+
+    @Autowired
+    private ResponseCache cache;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws Exception {
+        if (!cache.isEnabled() || !(handler instanceof HandlerMethod method)
+                || !method.hasMethodAnnotation(ResponseCached.class)) return true;
+
+        var key = cache.key(request);
+        if (key == null) return true;
+        var hit = cache.get(key);
+        if (hit != null) {
+            // conditional GETs are answered from the stored validators too
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+            var webRequest = new ServletWebRequest(request, response);
+            if (hit.eTag() == null || !webRequest.checkNotModified(hit.eTag(), hit.lastModified())) {
+                hit.writeTo(response);
+            }
+            return false;
+        }
+        var wrapper = WebUtils.getNativeResponse(response, CapturingResponseWrapper.class);
+        if (wrapper != null) {
+            wrapper.startCapture();
+            request.setAttribute(ResponseCache.KEY_ATTRIBUTE, key);
+        }
+        return true;
+    }
+}
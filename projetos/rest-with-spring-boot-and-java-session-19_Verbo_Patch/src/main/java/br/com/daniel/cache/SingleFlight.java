@@ -0,0 +1,91 @@
+package br.com.daniel.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// concurrent loads of the same key share one: the first caller runs the loader, the ones arriving while it runs
+// wait for its result (or its exception) instead of running it again. A caller that waited maxWait without an
+// answer loads on its own. Counted in singleflight.calls by role (leader, coalesced, timeout), with the share of
+// coalesced calls in singleflight.coalescing.ratio
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final long maxWaitNanos;
+
+    private final LongAdder leaders = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+
+    public SingleFlight(String name, Duration maxWait, MeterRegistry registry) {
+        this.maxWaitNanos = maxWait.toNanos();
+        counter(registry, name, "leader", leaders);
+        counter(registry, name, "coalesced", coalesced);
+        counter(registry, name, "timeout", timeouts);
+        Gauge.builder("singleflight.coalescing.ratio", this, SingleFlight::coalescingRatio)
+                .description("Share of calls answered by another caller's load")
+                .tag("name", name)
+                .register(registry);
+    }
+
+    private static void counter(MeterRegistry registry, String name, String role, LongAdder calls) {
+        FunctionCounter.builder("singleflight.calls", calls, LongAdder::sum)
+                .tag("name", name)
+                .tag("role", role)
+                .register(registry);
+    }
+
+    public V load(K key, Supplier<V> loader) {
+        var mine = new CompletableFuture<V>();
+        var running = inFlight.putIfAbsent(key, mine);
+        if (running == null) {
+            leaders.increment();
+            try {
+                V value = loader.get();
+                mine.complete(value);
+                return value;
+            } catch (RuntimeException | Error e) {
+                mine.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(key, mine);
+            }
+        }
+        try {
+            V value = running.get(maxWaitNanos, TimeUnit.NANOSECONDS);
+            coalesced.increment();
+            return value;
+        } catch (ExecutionException e) {
+            coalesced.increment();
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            if (e.getCause() instanceof Error cause) throw cause;
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            timeouts.increment();
+            return loader.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            timeouts.increment();
+            return loader.get();
+        }
+    }
+
+    // after a write: callers from now on start a new load instead of joining one that may have read the old value
+    public void forget(K key) {
+        inFlight.remove(key);
+    }
+
+    public double coalescingRatio() {
+        long total = leaders.sum() + coalesced.sum() + timeouts.sum();
+        return total == 0 ? 0 : coalesced.sum() / (double) total;
+    }
+}
@@ -0,0 +1,63 @@
+package br.com.daniel.config;
+
+import br.com.daniel.cache.AfterCommit;
+import br.com.daniel.datasource.BorrowTrackingDataSource;
+import br.com.daniel.datasource.ReadReplicas;
+import br.com.daniel.datasource.ReplicaRoutingDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+
+// the DataSource everyone gets (JPA, JdbcTemplate, Flyway) hands out lazy connections: opening a session or a
+// transaction, setAutoCommit/setReadOnly and a commit with nothing executed don't touch the pool; the physical
+// connection is borrowed on the first statement. With readReplicas.urls set, that borrow is also where read-only
+// transactions are routed to a replica
+@Configuration
+public class DataSourceConfig {
+
+    static final String DATA_SOURCE = "dataSource";
+
+    @Bean(destroyMethod = "close")
+    ReadReplicas readReplicas(
+            @Value("${readReplicas.urls:}") List<String> urls,
+            @Value("${readReplicas.username:${spring.datasource.username:}}") String username,
+            @Value("${readReplicas.password:${spring.datasource.password:}}") String password,
+            @Value("${readReplicas.connectionTimeout:1s}") Duration connectionTimeout) {
+        return new ReadReplicas(urls, username, password, connectionTimeout);
+    }
+
+    @Bean(destroyMethod = "close")
+    AfterCommit afterCommit(ReadReplicas readReplicas,
+                            @Value("${readReplicas.readYourWrites:5s}") Duration readYourWrites) {
+        return new AfterCommit(readReplicas.isEmpty() ? Duration.ZERO : readYourWrites);
+    }
+
+    @Bean
+    static BeanPostProcessor lazyConnectionDataSourcePostProcessor(
+            ObjectProvider<ReadReplicas> replicas, Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (DATA_SOURCE.equals(beanName) && bean instanceof DataSource dataSource) {
+                    return new LazyConnectionDataSourceProxy(new BorrowTrackingDataSource(
+                            route(dataSource, replicas.getObject(), environment)));
+                }
+                return bean;
+            }
+        };
+    }
+
+    private static DataSource route(DataSource primary, ReadReplicas replicas, Environment environment) {
+        if (replicas.isEmpty()) return primary;
+        return new ReplicaRoutingDataSource(primary, replicas.pools(),
+                environment.getProperty("readReplicas.retryAfter", Duration.class, Duration.ofSeconds(30)));
+    }
+}
@@ -0,0 +1,63 @@
+package br.com.daniel.config;
+
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.core.config.DefaultConfiguration;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.UUID;
+
+// regions of the Hibernate second-level cache, sized from application.yml instead of an ehcache.xml
+@Configuration
+public class SecondLevelCacheConfig {
+
+    public static final String PERSON_REGION = "person";
+    public static final String BOOK_REGION = "book";
+
+    @Value("${secondLevelCache.person.size:10000}")
+    private long personSize;
+
+    @Value("${secondLevelCache.person.ttl:10m}")
+    private Duration personTtl;
+
+    @Value("${secondLevelCache.book.size:10000}")
+    private long bookSize;
+
+    @Value("${secondLevelCache.book.ttl:10m}")
+    private Duration bookTtl;
+
+    // the provider keeps one manager per URI for the whole JVM: each context gets its own, closed with it, so a
+    // second context (another test configuration) doesn't find the regions already created
+    @Bean(destroyMethod = "close")
+    CacheManager secondLevelCacheManager() {
+        var provider = (EhcacheCachingProvider) Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+        var cacheManager = provider.getCacheManager(URI.create("urn:second-level-cache:" + UUID.randomUUID()),
+                new DefaultConfiguration(getClass().getClassLoader()));
+        cacheManager.createCache(PERSON_REGION, region(personSize, personTtl));
+        cacheManager.createCache(BOOK_REGION, region(bookSize, bookTtl));
+        return cacheManager;
+    }
+
+    @Bean
+    HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager secondLevelCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, secondLevelCacheManager);
+    }
+
+    private static javax.cache.configuration.Configuration<Object, Object> region(long size, Duration ttl) {
+        return Eh107Configuration.fromEhcacheCacheConfiguration(
+                CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class,
+                                ResourcePoolsBuilder.heap(size))
+                        .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(ttl)));
+    }
+}
@@ -1,11 +1,14 @@
 package br.com.daniel.config;
 
+import br.com.daniel.cache.ResponseCacheInterceptor;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.web.servlet.config.annotation.ContentNegotiationConfigurer;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
@@ -14,6 +17,9 @@ public class WebConfig implements WebMvcConfigurer {
     @Value("${cors.originPatterns}")
     private String corsOriginPatterns = "";
 
+    @Autowired
+    private ResponseCacheInterceptor responseCacheInterceptor;
+
     @Override
     public void addCorsMappings(CorsRegistry registry) {
         var allowedOrigins = this.corsOriginPatterns.split(",");
@@ -37,4 +43,9 @@ public class WebConfig implements WebMvcConfigurer {
                 .mediaType("yaml", MediaType.APPLICATION_YAML);
     }
 
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(responseCacheInterceptor);
+    }
+
 }
@@ -0,0 +1,39 @@
+package br.com.daniel.controllers;
+
+import br.com.daniel.controllers.docs.BatchControllerDocs;
+import br.com.daniel.data.dto.BatchRequestDTO;
+import br.com.daniel.data.dto.BatchResultDTO;
+import br.com.daniel.services.BatchServices;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/batch/v1")
+@Tag(name = "Batch", description = "Endpoint for running many People and Books operations in one request")
+public class BatchController implements BatchControllerDocs {
+
+    @Autowired
+    private BatchServices service;
+
+    // the bodies are JSON trees, so JSON (or YAML) in and out
+    @PostMapping(
+            consumes = {
+                    MediaType.APPLICATION_JSON_VALUE,
+                    MediaType.APPLICATION_YAML_VALUE
+            },
+            produces = {
+                    MediaType.APPLICATION_JSON_VALUE,
+                    MediaType.APPLICATION_YAML_VALUE
+            })
+    @Override
+    public List<BatchResultDTO> execute(@RequestBody BatchRequestDTO batch) {
+        return service.execute(batch);
+    }
+}
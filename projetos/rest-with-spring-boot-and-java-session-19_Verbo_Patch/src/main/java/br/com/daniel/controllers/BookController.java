@@ -1,16 +1,36 @@
 package br.com.daniel.controllers;
 
+import br.com.daniel.cache.ResponseCached;
 import br.com.daniel.controllers.docs.BookControllerDocs;
+import br.com.daniel.data.ResourceStamp;
+import br.com.daniel.data.Written;
 import br.com.daniel.data.dto.BookDTO;
+import br.com.daniel.data.dto.ImportResultDTO;
+import br.com.daniel.exception.InvalidImportException;
+import br.com.daniel.serialization.streaming.StreamingWriterFactory;
+import br.com.daniel.serialization.patch.JsonPatches;
 import br.com.daniel.services.BookServices;
+import com.fasterxml.jackson.databind.JsonNode;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.Part;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/book/v1")
@@ -20,14 +40,117 @@ public class BookController implements BookControllerDocs {
     @Autowired
     private BookServices service;
 
+    @Autowired
+    private StreamingWriterFactory writers;
+
     @GetMapping(produces = {
             MediaType.APPLICATION_JSON_VALUE,
             MediaType.APPLICATION_XML_VALUE,
             MediaType.APPLICATION_YAML_VALUE
     })
     @Override
-    public ResponseEntity<List<BookDTO>> findAll() {
-        return ResponseEntity.ok(service.findAll());
+    public ResponseEntity<CollectionModel<BookDTO>> findAll(
+            @RequestParam(value = "after", required = false) Long after,
+            @RequestParam(value = "before", required = false) Long before,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            WebRequest request) {
+        var books = service.findAll(after, before, limit, stamp -> Validators.notModified(request, stamp));
+        if (books == null) return null;
+        return ResponseEntity.ok()
+                .header("X-Total-Count", String.valueOf(service.count()))
+                .body(books);
+    }
+
+    @GetMapping(params = "ids", produces = {
+            MediaType.APPLICATION_JSON_VALUE,
+            MediaType.APPLICATION_XML_VALUE,
+            MediaType.APPLICATION_YAML_VALUE
+    })
+    @Override
+    public ResponseEntity<CollectionModel<BookDTO>> findAllById(@RequestParam(value = "ids") List<Long> ids) {
+        var result = service.findAllById(ids);
+        var response = ResponseEntity.ok();
+        if (!result.missing().isEmpty()) {
+            response.header("X-Missing-Ids", result.missing().stream().map(String::valueOf).collect(Collectors.joining(",")));
+        }
+        return response.body(result.found());
+    }
+
+    @GetMapping(value = "/search", produces = {
+            MediaType.APPLICATION_JSON_VALUE,
+            MediaType.APPLICATION_XML_VALUE,
+            MediaType.APPLICATION_YAML_VALUE
+    })
+    @Override
+    public ResponseEntity<CollectionModel<BookDTO>> search(
+            @RequestParam(value = "q") String query,
+            @RequestParam(value = "page", required = false) Integer page,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+        return ResponseEntity.ok(service.search(query, page, limit));
+    }
+
+    @GetMapping(
+            value = "/stream",
+            produces = {
+                    MediaType.APPLICATION_JSON_VALUE,
+                    MediaType.APPLICATION_NDJSON_VALUE,
+                    MediaType.APPLICATION_XML_VALUE,
+                    MediaType.APPLICATION_YAML_VALUE
+            })
+    @Override
+    public void streamAll(
+            @RequestHeader(value = HttpHeaders.ACCEPT, defaultValue = MediaType.ALL_VALUE) String accept,
+            HttpServletResponse response) throws IOException {
+        var mediaType = writers.negotiate(MediaType.parseMediaTypes(accept));
+        response.setContentType(mediaType.toString());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        try (var writer = writers.open(mediaType, response.getOutputStream())) {
+            service.streamAll(writer::write);
+        }
+    }
+
+    @GetMapping(value = "/export", produces = StreamingWriterFactory.TEXT_CSV_VALUE)
+    @Override
+    public void exportCsv(HttpServletResponse response) throws IOException {
+        response.setContentType(StreamingWriterFactory.TEXT_CSV_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"books.csv\"");
+        try (var writer = writers.openCsv(BookServices.CSV_COLUMNS, response.getOutputStream())) {
+            service.export(writer::write);
+        }
+    }
+
+    // raw text/csv is parsed while it arrives; a multipart upload is spooled to disk by the container first
+    @PostMapping(
+            value = "/import",
+            consumes = {
+                    StreamingWriterFactory.TEXT_CSV_VALUE,
+                    MediaType.MULTIPART_FORM_DATA_VALUE
+            },
+            produces = {
+                    MediaType.APPLICATION_JSON_VALUE,
+                    MediaType.APPLICATION_XML_VALUE,
+                    MediaType.APPLICATION_YAML_VALUE
+            })
+    @Override
+    public ResponseEntity<ImportResultDTO> importCsv(HttpServletRequest request) throws IOException, ServletException {
+        MediaType contentType;
+        try {
+            contentType = MediaType.parseMediaType(request.getContentType());
+        } catch (InvalidMediaTypeException e) {
+            throw new InvalidImportException("A text/csv or multipart/form-data Content-Type is required!");
+        }
+        InputStream in;
+        if (MediaType.MULTIPART_FORM_DATA.isCompatibleWith(contentType)) {
+            Part file = request.getPart("file");
+            if (file == null) throw new InvalidImportException("The multipart request has no \"file\" part!");
+            in = file.getInputStream();
+        } else {
+            in = request.getInputStream();
+        }
+        try (var books = writers.readCsv(BookDTO.class, in)) {
+            return ResponseEntity.ok(service.importCsv(books));
+        }
     }
 
     @GetMapping(
@@ -37,9 +160,11 @@ public class BookController implements BookControllerDocs {
                     MediaType.APPLICATION_XML_VALUE,
                     MediaType.APPLICATION_YAML_VALUE
             })
+    @ResponseCached
     @Override
-    public ResponseEntity<BookDTO> findById(@PathVariable("id") Long id) {
-        return ResponseEntity.ok(service.findById(id));
+    public ResponseEntity<BookDTO> findById(@PathVariable("id") Long id, WebRequest request) {
+        var found = service.findById(id, stamp -> Validators.notModified(request, stamp));
+        return found == null ? null : ResponseEntity.ok(found);
     }
 
     @PostMapping(
@@ -55,7 +180,10 @@ public class BookController implements BookControllerDocs {
             })
     @Override
     public ResponseEntity<BookDTO> create(@RequestBody BookDTO book) {
-        return ResponseEntity.status(HttpStatus.CREATED).body(service.create(book));
+        var created = service.create(book);
+        return Validators.withValidators(ResponseEntity.status(HttpStatus.CREATED),
+                        ResourceStamp.of(created.getVersion(), created.getUpdatedAt()))
+                .body(created);
     }
 
     @PutMapping(
@@ -70,8 +198,37 @@ public class BookController implements BookControllerDocs {
                     MediaType.APPLICATION_YAML_VALUE
             })
     @Override
-    public ResponseEntity<BookDTO> update(@RequestBody BookDTO book) {
-        return ResponseEntity.ok(service.update(book));
+    public ResponseEntity<BookDTO> update(
+            @RequestBody BookDTO book,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestHeader(value = ReturnPreference.PREFER, required = false) String prefer) {
+        if (ReturnPreference.minimal(prefer)) {
+            return ReturnPreference.applied(service.update(book, ifMatch, false).stamp());
+        }
+        return withValidators(service.update(book, ifMatch, true));
+    }
+
+    @PatchMapping(value = "/{id}",
+            consumes = {
+                    JsonPatches.MERGE_PATCH_JSON_VALUE,
+                    JsonPatches.JSON_PATCH_JSON_VALUE
+            },
+            produces = {
+                    MediaType.APPLICATION_JSON_VALUE,
+                    MediaType.APPLICATION_XML_VALUE,
+                    MediaType.APPLICATION_YAML_VALUE
+            })
+    @Override
+    public ResponseEntity<BookDTO> patch(
+            @PathVariable("id") Long id,
+            @RequestBody JsonNode patch,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestHeader(value = ReturnPreference.PREFER, required = false) String prefer) {
+        if (ReturnPreference.minimal(prefer)) {
+            return ReturnPreference.applied(service.patch(id, patch, contentType, ifMatch, false).stamp());
+        }
+        return withValidators(service.patch(id, patch, contentType, ifMatch, true));
     }
 
     @DeleteMapping(value = "/{id}")
@@ -80,4 +237,9 @@ public class BookController implements BookControllerDocs {
         service.deleteById(id);
         return ResponseEntity.noContent().build();
     }
+
+    private static ResponseEntity<BookDTO> withValidators(Written<BookDTO> written) {
+        return Validators.withValidators(ResponseEntity.ok(), written.stamp()).body(written.representation());
+    }
+
 }
@@ -0,0 +1,67 @@
+package br.com.daniel.controllers;
+
+import br.com.daniel.controllers.docs.ExportJobControllerDocs;
+import br.com.daniel.data.dto.ExportJobDTO;
+import br.com.daniel.export.FileDownload;
+import br.com.daniel.services.ExportJobServices;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.net.URI;
+
+@RestController
+@RequestMapping("/api/export/v1")
+@Tag(name = "Exports", description = "Background exports of People and Books, downloaded once written")
+public class ExportJobController implements ExportJobControllerDocs {
+
+    @Autowired
+    private ExportJobServices service;
+
+    @PostMapping(value = "/{dataset}", produces = {
+            MediaType.APPLICATION_JSON_VALUE,
+            MediaType.APPLICATION_XML_VALUE,
+            MediaType.APPLICATION_YAML_VALUE
+    })
+    @Override
+    public ResponseEntity<ExportJobDTO> start(
+            @PathVariable("dataset") String dataset,
+            @RequestParam(value = "format", defaultValue = "json") String format) {
+        var job = service.start(dataset, format);
+        return ResponseEntity.accepted()
+                .location(URI.create(job.getRequiredLink(IanaLinkRelations.SELF).getHref()))
+                .body(job);
+    }
+
+    @GetMapping(value = "/{id}", produces = {
+            MediaType.APPLICATION_JSON_VALUE,
+            MediaType.APPLICATION_XML_VALUE,
+            MediaType.APPLICATION_YAML_VALUE
+    })
+    @Override
+    public ExportJobDTO findById(@PathVariable("id") String id) {
+        return service.findById(id);
+    }
+
+    @GetMapping("/{id}/file")
+    @Override
+    public void download(@PathVariable("id") String id, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        var job = service.download(id);
+        FileDownload.send(job.getFile(), job.getFormat().getMediaType(), job.getFileName(), job.getETag(),
+                request, response);
+    }
+
+    @DeleteMapping("/{id}")
+    @Override
+    public ResponseEntity<?> delete(@PathVariable("id") String id) {
+        service.delete(id);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -1,16 +1,33 @@
 package br.com.daniel.controllers;
 
+import br.com.daniel.cache.ResponseCached;
 import br.com.daniel.controllers.docs.PersonControllerDocs;
+import br.com.daniel.data.ResourceStamp;
+import br.com.daniel.data.Written;
+import br.com.daniel.data.dto.DuplicateReportDTO;
+import br.com.daniel.data.dto.NameSuggestionDTO;
 import br.com.daniel.data.dto.PersonDTO;
+import br.com.daniel.serialization.streaming.StreamingWriterFactory;
+import br.com.daniel.serialization.patch.JsonPatches;
+import br.com.daniel.services.DuplicateDetectionServices;
 import br.com.daniel.services.PersonServices;
+import com.fasterxml.jackson.databind.JsonNode;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.stream.Collectors;
 
 //@CrossOrigin(origins = "http://localhost:8080")
 @RestController
@@ -21,14 +38,122 @@ public class PersonController implements PersonControllerDocs {
     @Autowired
     private PersonServices service;
 
+    @Autowired
+    private StreamingWriterFactory writers;
+
+    @Autowired
+    private DuplicateDetectionServices duplicates;
+
     @GetMapping(produces = {
             MediaType.APPLICATION_JSON_VALUE,
             MediaType.APPLICATION_XML_VALUE,
             MediaType.APPLICATION_YAML_VALUE
     })
     @Override
-    public ResponseEntity<List<PersonDTO>> findAll() {
-        return ResponseEntity.ok(service.findAll());
+    public ResponseEntity<CollectionModel<PersonDTO>> findAll(
+            @RequestParam(value = "after", required = false) Long after,
+            @RequestParam(value = "before", required = false) Long before,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            WebRequest request) {
+        // If-None-Match answered with 304 before the page is even queried
+        var people = service.findAll(after, before, limit, stamp -> Validators.notModified(request, stamp));
+        if (people == null) return null;
+        return ResponseEntity.ok()
+                .header("X-Total-Count", String.valueOf(service.count()))
+                .body(people);
+    }
+
+    @GetMapping(params = "ids", produces = {
+            MediaType.APPLICATION_JSON_VALUE,
+            MediaType.APPLICATION_XML_VALUE,
+            MediaType.APPLICATION_YAML_VALUE
+    })
+    @Override
+    public ResponseEntity<CollectionModel<PersonDTO>> findAllById(@RequestParam(value = "ids") List<Long> ids) {
+        var result = service.findAllById(ids);
+        var response = ResponseEntity.ok();
+        // ids that don't exist are reported, not a reason to fail the ones that do
+        if (!result.missing().isEmpty()) {
+            response.header("X-Missing-Ids", result.missing().stream().map(String::valueOf).collect(Collectors.joining(",")));
+        }
+        return response.body(result.found());
+    }
+
+    @GetMapping(value = "/autocomplete", produces = {
+            MediaType.APPLICATION_JSON_VALUE,
+            MediaType.APPLICATION_XML_VALUE,
+            MediaType.APPLICATION_YAML_VALUE
+    })
+    @Override
+    public List<NameSuggestionDTO> autocomplete(
+            @RequestParam(value = "q") String prefix,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+        return service.autocomplete(prefix, limit);
+    }
+
+    @PostMapping(value = "/duplicates", produces = {
+            MediaType.APPLICATION_JSON_VALUE,
+            MediaType.APPLICATION_XML_VALUE,
+            MediaType.APPLICATION_YAML_VALUE
+    })
+    @Override
+    public ResponseEntity<DuplicateReportDTO> detectDuplicates() {
+        return ResponseEntity.accepted().body(duplicates.start());
+    }
+
+    @GetMapping(value = "/duplicates", produces = {
+            MediaType.APPLICATION_JSON_VALUE,
+            MediaType.APPLICATION_XML_VALUE,
+            MediaType.APPLICATION_YAML_VALUE
+    })
+    @Override
+    public DuplicateReportDTO duplicates() {
+        return duplicates.latest();
+    }
+
+    @GetMapping(
+            value = "/stream",
+            produces = {
+                    MediaType.APPLICATION_JSON_VALUE,
+                    MediaType.APPLICATION_NDJSON_VALUE,
+                    MediaType.APPLICATION_XML_VALUE,
+                    MediaType.APPLICATION_YAML_VALUE
+            })
+    @Override
+    public void streamAll(
+            @RequestHeader(value = HttpHeaders.ACCEPT, defaultValue = MediaType.ALL_VALUE) String accept,
+            HttpServletResponse response) throws IOException {
+        var mediaType = writers.negotiate(MediaType.parseMediaTypes(accept));
+        response.setContentType(mediaType.toString());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        try (var writer = writers.open(mediaType, response.getOutputStream())) {
+            service.streamAll(writer::write);
+        }
+    }
+
+    @PostMapping(
+            value = "/bulk",
+            consumes = {
+                    MediaType.APPLICATION_JSON_VALUE,
+                    MediaType.APPLICATION_NDJSON_VALUE
+            },
+            produces = {
+                    MediaType.APPLICATION_JSON_VALUE,
+                    MediaType.APPLICATION_NDJSON_VALUE
+            })
+    @Override
+    public void bulkCreate(
+            @RequestHeader(value = HttpHeaders.ACCEPT, defaultValue = MediaType.ALL_VALUE) String accept,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        var mediaType = writers.negotiate(MediaType.parseMediaTypes(accept));
+        response.setContentType(mediaType.toString());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        // items are read, written and reported chunk by chunk: neither side is held in memory
+        try (var people = writers.readValues(PersonDTO.class, request.getInputStream());
+             var writer = writers.open(mediaType, response.getOutputStream())) {
+            service.bulkCreate(people, writer::write);
+        }
     }
 
     //@CrossOrigin(origins = "http://localhost:8080")
@@ -39,9 +164,11 @@ public class PersonController implements PersonControllerDocs {
                     MediaType.APPLICATION_XML_VALUE,
                     MediaType.APPLICATION_YAML_VALUE
             })
+    @ResponseCached
     @Override
-    public ResponseEntity<PersonDTO> findById(@PathVariable("id") Long id) {
-        return ResponseEntity.ok(service.findById(id));
+    public ResponseEntity<PersonDTO> findById(@PathVariable("id") Long id, WebRequest request) {
+        var found = service.findById(id, stamp -> Validators.notModified(request, stamp));
+        return found == null ? null : ResponseEntity.ok(found);
     }
 
     //@CrossOrigin(origins = {"http://localhost:8080", "https://www.erudio.com.br"})
@@ -58,7 +185,10 @@ public class PersonController implements PersonControllerDocs {
             })
     @Override
     public ResponseEntity<PersonDTO> create(@RequestBody PersonDTO person) {
-        return ResponseEntity.status(HttpStatus.CREATED).body(service.create(person));
+        var created = service.create(person);
+        return Validators.withValidators(ResponseEntity.status(HttpStatus.CREATED),
+                        ResourceStamp.of(created.getVersion(), created.getUpdatedAt()))
+                .body(created);
     }
 
     @PutMapping(
@@ -73,8 +203,37 @@ public class PersonController implements PersonControllerDocs {
                     MediaType.APPLICATION_YAML_VALUE
             })
     @Override
-    public ResponseEntity<PersonDTO> update(@RequestBody PersonDTO person) {
-        return ResponseEntity.ok(service.update(person));
+    public ResponseEntity<PersonDTO> update(
+            @RequestBody PersonDTO person,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestHeader(value = ReturnPreference.PREFER, required = false) String prefer) {
+        if (ReturnPreference.minimal(prefer)) {
+            return ReturnPreference.applied(service.update(person, ifMatch, false).stamp());
+        }
+        return withValidators(service.update(person, ifMatch, true));
+    }
+
+    @PatchMapping(value = "/{id}",
+            consumes = {
+                    JsonPatches.MERGE_PATCH_JSON_VALUE,
+                    JsonPatches.JSON_PATCH_JSON_VALUE
+            },
+            produces = {
+                    MediaType.APPLICATION_JSON_VALUE,
+                    MediaType.APPLICATION_XML_VALUE,
+                    MediaType.APPLICATION_YAML_VALUE
+            })
+    @Override
+    public ResponseEntity<PersonDTO> patch(
+            @PathVariable("id") Long id,
+            @RequestBody JsonNode patch,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestHeader(value = ReturnPreference.PREFER, required = false) String prefer) {
+        if (ReturnPreference.minimal(prefer)) {
+            return ReturnPreference.applied(service.patch(id, patch, contentType, ifMatch, false).stamp());
+        }
+        return withValidators(service.patch(id, patch, contentType, ifMatch, true));
     }
 
     @PatchMapping(value = "/{id}",
@@ -84,8 +243,14 @@ public class PersonController implements PersonControllerDocs {
                     MediaType.APPLICATION_YAML_VALUE
             })
     @Override
-    public ResponseEntity<PersonDTO> disabledPerson(@PathVariable("id") Long id) {
-        return ResponseEntity.ok(service.disabledPerson(id));
+    public ResponseEntity<PersonDTO> disabledPerson(
+            @PathVariable("id") Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestHeader(value = ReturnPreference.PREFER, required = false) String prefer) {
+        if (ReturnPreference.minimal(prefer)) {
+            return ReturnPreference.applied(service.disabledPerson(id, ifMatch, false).stamp());
+        }
+        return withValidators(service.disabledPerson(id, ifMatch, true));
     }
 
     @DeleteMapping(value = "/{id}")
@@ -95,4 +260,8 @@ public class PersonController implements PersonControllerDocs {
         return ResponseEntity.noContent().build();
     }
 
+    private static ResponseEntity<PersonDTO> withValidators(Written<PersonDTO> written) {
+        return Validators.withValidators(ResponseEntity.ok(), written.stamp()).body(written.representation());
+    }
+
 }
@@ -0,0 +1,30 @@
+package br.com.daniel.controllers;
+
+import br.com.daniel.data.ResourceStamp;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+// RFC 7240 "Prefer: return=minimal": the write answers 204 and the representation isn't read back
+final class ReturnPreference {
+
+    static final String PREFER = "Prefer";
+
+    static final String MINIMAL = "return=minimal";
+
+    private ReturnPreference() {}
+
+    static boolean minimal(String prefer) {
+        if (prefer == null) return false;
+        for (String preference : prefer.split(",")) {
+            if (preference.trim().equalsIgnoreCase(MINIMAL)) return true;
+        }
+        return false;
+    }
+
+    // no body, but the validators of what was written: the client's next If-Match
+    static <T> ResponseEntity<T> applied(ResourceStamp stamp) {
+        return Validators.withValidators(ResponseEntity.status(HttpStatus.NO_CONTENT), stamp)
+                .header("Preference-Applied", MINIMAL)
+                .build();
+    }
+}
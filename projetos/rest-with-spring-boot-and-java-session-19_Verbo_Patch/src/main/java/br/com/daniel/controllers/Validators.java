@@ -0,0 +1,37 @@
+package br.com.daniel.controllers;
+
+import br.com.daniel.data.ResourceStamp;
+import br.com.daniel.hateoas.NegotiatedRepresentation;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+// the ETag names the negotiated representation as well as the version, and every answer carrying one, 304
+// included, says it varies with Accept
+final class Validators {
+
+    private Validators() {}
+
+    static ResourceStamp ofRepresentation(ResourceStamp stamp) {
+        return stamp.forRepresentation(NegotiatedRepresentation.current());
+    }
+
+    // also writes the ETag / Last-Modified headers of the 200
+    static boolean notModified(WebRequest request, ResourceStamp stamp) {
+        if (request instanceof NativeWebRequest nativeRequest
+                && nativeRequest.getNativeResponse(HttpServletResponse.class) instanceof HttpServletResponse response) {
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        }
+        var tagged = ofRepresentation(stamp);
+        return request.checkNotModified(tagged.eTag(), tagged.lastModified());
+    }
+
+    static ResponseEntity.BodyBuilder withValidators(ResponseEntity.BodyBuilder response, ResourceStamp stamp) {
+        var tagged = ofRepresentation(stamp);
+        response.varyBy(HttpHeaders.ACCEPT).eTag(tagged.eTag());
+        if (tagged.lastModified() >= 0) response.lastModified(tagged.lastModified());
+        return response;
+    }
+}
@@ -0,0 +1,38 @@
+package br.com.daniel.controllers.docs;
+
+import br.com.daniel.data.dto.BatchRequestDTO;
+import br.com.daniel.data.dto.BatchResultDTO;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.RequestBody;
+
+import java.util.List;
+
+public interface BatchControllerDocs {
+
+    @Operation(
+            summary = "Run a batch of operations",
+            description = "Runs up to 100 person/book operations (method, path, headers, body: GET, POST, PUT, " +
+                    "PATCH or DELETE on /api/person/v1 and /api/book/v1) in one request, in order. Answers one " +
+                    "result per operation with the status, ETag and body it would have had on its own. With " +
+                    "atomic=true they run in one transaction: the first failure rolls them all back and the others " +
+                    "answer 424. Otherwise each stands on its own and consecutive GETs are read in parallel",
+            tags = {"Batch"},
+            responses = {
+                    @ApiResponse(description = "Success", responseCode = "200", content = {
+                            @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    array = @ArraySchema(schema = @Schema(implementation = BatchResultDTO.class))
+                            )
+                    }),
+                    @ApiResponse(description = "Bad Request", responseCode = "400", content = @Content),
+                    @ApiResponse(description = "Unauthorized", responseCode = "401", content = @Content),
+                    @ApiResponse(description = "Internal Server Error", responseCode = "500", content = @Content)
+            }
+    )
+    List<BatchResultDTO> execute(@RequestBody BatchRequestDTO batch);
+}
@@ -1,42 +1,150 @@
 package br.com.daniel.controllers.docs;
 
 import br.com.daniel.data.dto.BookDTO;
+import br.com.daniel.data.dto.ImportResultDTO;
+import br.com.daniel.serialization.streaming.StreamingWriterFactory;
+import com.fasterxml.jackson.databind.JsonNode;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
 import java.util.List;
 
 public interface BookControllerDocs {
 
     @Operation(
             summary = "Find all Books",
-            description = "Finds all Books",
+            description = "Finds a page of Books ordered by ID. The collection carries the self/first/prev/next " +
+                    "links (after/before cursors) and the create/update links once; each item only its own links",
+            tags = {"Books"},
+            responses = {
+                    @ApiResponse(description = "Success", responseCode = "200", content = {
+                            @Content(mediaType = MediaType.APPLICATION_JSON_VALUE)
+                    }),
+                    @ApiResponse(description = "No Content", responseCode = "204", content = @Content),
+                    @ApiResponse(description = "Unauthorized", responseCode = "401", content = @Content),
+                    @ApiResponse(description = "Not Found", responseCode = "404", content = @Content),
+                    @ApiResponse(description = "Not Modified", responseCode = "304", content = @Content),
+                    @ApiResponse(description = "Internal Server Error", responseCode = "500", content = @Content)
+            }
+    )
+    ResponseEntity<CollectionModel<BookDTO>> findAll(
+            @RequestParam(value = "after", required = false) Long after,
+            @RequestParam(value = "before", required = false) Long before,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @Parameter(hidden = true) WebRequest request);
+
+    @Operation(
+            summary = "Find Books by ID",
+            description = "Finds up to 100 Books by ID in one request (ids=1,2,3), in the order asked. IDs that " +
+                    "don't exist are left out and listed in the X-Missing-Ids header",
+            tags = {"Books"},
+            responses = {
+                    @ApiResponse(description = "Success", responseCode = "200", content = {
+                            @Content(mediaType = MediaType.APPLICATION_JSON_VALUE)
+                    }),
+                    @ApiResponse(description = "Bad Request", responseCode = "400", content = @Content),
+                    @ApiResponse(description = "Unauthorized", responseCode = "401", content = @Content),
+                    @ApiResponse(description = "Internal Server Error", responseCode = "500", content = @Content)
+            }
+    )
+    ResponseEntity<CollectionModel<BookDTO>> findAllById(@RequestParam(value = "ids") List<Long> ids);
+
+    @Operation(
+            summary = "Search Books",
+            description = "Full-text search over title and author, best matches first. Each book carries its " +
+                    "relevance score; pages go by number (page=0, 1, ...) with prev/next links",
+            tags = {"Books"},
+            responses = {
+                    @ApiResponse(description = "Success", responseCode = "200", content = {
+                            @Content(mediaType = MediaType.APPLICATION_JSON_VALUE)
+                    }),
+                    @ApiResponse(description = "Bad Request", responseCode = "400", content = @Content),
+                    @ApiResponse(description = "Unauthorized", responseCode = "401", content = @Content),
+                    @ApiResponse(description = "Internal Server Error", responseCode = "500", content = @Content)
+            }
+    )
+    ResponseEntity<CollectionModel<BookDTO>> search(
+            @RequestParam(value = "q") String query,
+            @RequestParam(value = "page", required = false) Integer page,
+            @RequestParam(value = "limit", required = false) Integer limit);
+
+    @Operation(
+            summary = "Stream all Books",
+            description = "Streams every book straight from a database cursor as a JSON array, NDJSON, XML or YAML " +
+                    "sequence, without loading the whole list in memory",
             tags = {"Books"},
             responses = {
                     @ApiResponse(description = "Success", responseCode = "200", content = {
                             @Content(
                                     mediaType = MediaType.APPLICATION_JSON_VALUE,
                                     array = @ArraySchema(schema = @Schema(implementation = BookDTO.class))
+                            ),
+                            @Content(
+                                    mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                                    schema = @Schema(implementation = BookDTO.class)
                             )
                     }),
-                    @ApiResponse(description = "No Content", responseCode = "204", content = @Content),
                     @ApiResponse(description = "Unauthorized", responseCode = "401", content = @Content),
-                    @ApiResponse(description = "Not Found", responseCode = "404", content = @Content),
                     @ApiResponse(description = "Internal Server Error", responseCode = "500", content = @Content)
             }
     )
-    ResponseEntity<List<BookDTO>> findAll();
+    void streamAll(@RequestHeader(value = HttpHeaders.ACCEPT, defaultValue = MediaType.ALL_VALUE) String accept,
+                   @Parameter(hidden = true) HttpServletResponse response) throws IOException;
+
+    @Operation(
+            summary = "Export all Books as CSV",
+            description = "Streams every book as a CSV row (header first) straight from a database cursor",
+            tags = {"Books"},
+            responses = {
+                    @ApiResponse(description = "Success", responseCode = "200", content = {
+                            @Content(mediaType = StreamingWriterFactory.TEXT_CSV_VALUE)
+                    }),
+                    @ApiResponse(description = "Unauthorized", responseCode = "401", content = @Content),
+                    @ApiResponse(description = "Internal Server Error", responseCode = "500", content = @Content)
+            }
+    )
+    void exportCsv(@Parameter(hidden = true) HttpServletResponse response) throws IOException;
+
+    @Operation(
+            summary = "Import Books from CSV",
+            description = "Reads a CSV (raw text/csv body, or the \"file\" part of a multipart upload, at most 100MB) with a header row " +
+                    "naming the columns author, launchDate, price and title, and inserts it in batched chunks. " +
+                    "Reports the rows imported and rows per second; a bad row stops the import after the chunks " +
+                    "already committed",
+            tags = {"Books"},
+            responses = {
+                    @ApiResponse(
+                            description = "Success",
+                            responseCode = "200",
+                            content = @Content(schema = @Schema(implementation = ImportResultDTO.class))),
+                    @ApiResponse(description = "Bad Request", responseCode = "400", content = @Content),
+                    @ApiResponse(description = "Unauthorized", responseCode = "401", content = @Content),
+                    @ApiResponse(description = "Internal Server Error", responseCode = "500", content = @Content)
+            }
+    )
+    ResponseEntity<ImportResultDTO> importCsv(@Parameter(hidden = true) HttpServletRequest request)
+            throws IOException, ServletException;
 
     @Operation(
             summary = "Finds a Book",
-            description = "Find a specific book by your ID",
+            description = "Find a specific book by your ID. Sends ETag (one per representation)/Last-Modified and answers If-None-Match with 304",
             tags = {"Books"},
             responses = {
                     @ApiResponse(
@@ -46,10 +154,11 @@ public interface BookControllerDocs {
                     @ApiResponse(description = "No Content", responseCode = "204", content = @Content),
                     @ApiResponse(description = "Unauthorized", responseCode = "401", content = @Content),
                     @ApiResponse(description = "Not Found", responseCode = "404", content = @Content),
+                    @ApiResponse(description = "Not Modified", responseCode = "304", content = @Content),
                     @ApiResponse(description = "Internal Server Error", responseCode = "500", content = @Content)
             }
     )
-    ResponseEntity<BookDTO> findById(@PathVariable("id") Long id);
+    ResponseEntity<BookDTO> findById(@PathVariable("id") Long id, @Parameter(hidden = true) WebRequest request);
 
     @Operation(
             summary = "Add a new Book",
@@ -80,10 +189,42 @@ public interface BookControllerDocs {
                     @ApiResponse(description = "No Content", responseCode = "204", content = @Content),
                     @ApiResponse(description = "Unauthorized", responseCode = "401", content = @Content),
                     @ApiResponse(description = "Not Found", responseCode = "404", content = @Content),
+                    @ApiResponse(description = "Precondition Failed", responseCode = "412", content = @Content),
+                    @ApiResponse(description = "Internal Server Error", responseCode = "500", content = @Content)
+            }
+    )
+    ResponseEntity<BookDTO> update(
+            @RequestBody BookDTO book,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @Parameter(description = "return=minimal answers 204 with the new ETag, without the representation")
+            @RequestHeader(value = "Prefer", required = false) String prefer);
+
+    @Operation(
+            summary = "Partially updates a Book",
+            description = "Applies a JSON Merge Patch (application/merge-patch+json) or a JSON Patch " +
+                    "(application/json-patch+json) to the book; only the changed columns are written and a patch " +
+                    "that changes nothing writes nothing",
+            tags = {"Books"},
+            responses = {
+                    @ApiResponse(
+                            description = "Success",
+                            responseCode = "200",
+                            content = @Content(schema = @Schema(implementation = BookDTO.class))),
+                    @ApiResponse(description = "No Content", responseCode = "204", content = @Content),
+                    @ApiResponse(description = "Bad Request", responseCode = "400", content = @Content),
+                    @ApiResponse(description = "Unauthorized", responseCode = "401", content = @Content),
+                    @ApiResponse(description = "Not Found", responseCode = "404", content = @Content),
+                    @ApiResponse(description = "Precondition Failed", responseCode = "412", content = @Content),
                     @ApiResponse(description = "Internal Server Error", responseCode = "500", content = @Content)
             }
     )
-    ResponseEntity<BookDTO> update(@RequestBody BookDTO book);
+    ResponseEntity<BookDTO> patch(
+            @PathVariable("id") Long id,
+            @RequestBody JsonNode patch,
+            @Parameter(hidden = true) @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @Parameter(description = "return=minimal answers 204 with the new ETag, without the representation")
+            @RequestHeader(value = "Prefer", required = false) String prefer);
 
     @Operation(
             summary = "Deletes a Book",
@@ -0,0 +1,93 @@
+package br.com.daniel.controllers.docs;
+
+import br.com.daniel.data.dto.ExportJobDTO;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.io.IOException;
+
+public interface ExportJobControllerDocs {
+
+    @Operation(
+            summary = "Start an export",
+            description = "Queues a background job that writes every person or book (dataset \"person\" or \"book\") " +
+                    "to a file as json, ndjson, xml, yaml or csv. Answers at once with the job, whose self link " +
+                    "(also the Location header) reports its progress. While a job of the same dataset and format is " +
+                    "still queued or running, that job is answered instead of a new one",
+            tags = {"Exports"},
+            responses = {
+                    @ApiResponse(
+                            description = "Accepted",
+                            responseCode = "202",
+                            content = @Content(schema = @Schema(implementation = ExportJobDTO.class))),
+                    @ApiResponse(description = "Bad Request", responseCode = "400", content = @Content),
+                    @ApiResponse(description = "Unauthorized", responseCode = "401", content = @Content),
+                    @ApiResponse(description = "Internal Server Error", responseCode = "500", content = @Content)
+            }
+    )
+    ResponseEntity<ExportJobDTO> start(
+            @PathVariable("dataset") String dataset,
+            @RequestParam(value = "format", defaultValue = "json") String format);
+
+    @Operation(
+            summary = "Export status",
+            description = "Status of an export job: rows written so far out of the total counted when it started, " +
+                    "and once done the file size, the download link and when the file expires",
+            tags = {"Exports"},
+            responses = {
+                    @ApiResponse(
+                            description = "Success",
+                            responseCode = "200",
+                            content = @Content(schema = @Schema(implementation = ExportJobDTO.class))),
+                    @ApiResponse(description = "Unauthorized", responseCode = "401", content = @Content),
+                    @ApiResponse(description = "Not Found", responseCode = "404", content = @Content),
+                    @ApiResponse(description = "Internal Server Error", responseCode = "500", content = @Content)
+            }
+    )
+    ExportJobDTO findById(@PathVariable("id") String id);
+
+    @Operation(
+            summary = "Download an export",
+            description = "Sends the finished file straight from disk. Honours a single Range (and If-Range with " +
+                    "the job's ETag) so an interrupted download can resume where it stopped",
+            tags = {"Exports"},
+            responses = {
+                    @ApiResponse(description = "Success", responseCode = "200", content = {
+                            @Content(mediaType = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+                    }),
+                    @ApiResponse(description = "Partial Content", responseCode = "206", content = {
+                            @Content(mediaType = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+                    }),
+                    @ApiResponse(description = "Unauthorized", responseCode = "401", content = @Content),
+                    @ApiResponse(description = "Not Found", responseCode = "404", content = @Content),
+                    @ApiResponse(description = "Conflict", responseCode = "409", content = @Content),
+                    @ApiResponse(description = "Range Not Satisfiable", responseCode = "416", content = @Content),
+                    @ApiResponse(description = "Internal Server Error", responseCode = "500", content = @Content)
+            }
+    )
+    void download(@PathVariable("id") String id,
+                  @Parameter(hidden = true) HttpServletRequest request,
+                  @Parameter(hidden = true) HttpServletResponse response) throws IOException;
+
+    @Operation(
+            summary = "Deletes an export",
+            description = "Cancels the job if it is still running and deletes its file",
+            tags = {"Exports"},
+            responses = {
+                    @ApiResponse(description = "No Content", responseCode = "204", content = @Content),
+                    @ApiResponse(description = "Unauthorized", responseCode = "401", content = @Content),
+                    @ApiResponse(description = "Not Found", responseCode = "404", content = @Content),
+                    @ApiResponse(description = "Internal Server Error", responseCode = "500", content = @Content)
+            }
+    )
+    ResponseEntity<?> delete(@PathVariable("id") String id);
+}
@@ -1,42 +1,175 @@
 package br.com.daniel.controllers.docs;
 
+import br.com.daniel.data.dto.BulkResultDTO;
+import br.com.daniel.data.dto.DuplicateReportDTO;
+import br.com.daniel.data.dto.NameSuggestionDTO;
 import br.com.daniel.data.dto.PersonDTO;
+import com.fasterxml.jackson.databind.JsonNode;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
 import java.util.List;
 
 public interface PersonControllerDocs {
 
     @Operation(
             summary = "Find all People",
-            description = "Finds all People",
+            description = "Finds a page of People ordered by ID. The collection carries the self/first/prev/next " +
+                    "links (after/before cursors) and the create/update links once; each item only its own links",
+            tags = {"People"},
+            responses = {
+                    @ApiResponse(description = "Success", responseCode = "200", content = {
+                            @Content(mediaType = MediaType.APPLICATION_JSON_VALUE)
+                    }),
+                    @ApiResponse(description = "No Content", responseCode = "204", content = @Content),
+                    @ApiResponse(description = "Unauthorized", responseCode = "401", content = @Content),
+                    @ApiResponse(description = "Not Found", responseCode = "404", content = @Content),
+                    @ApiResponse(description = "Not Modified", responseCode = "304", content = @Content),
+                    @ApiResponse(description = "Internal Server Error", responseCode = "500", content = @Content)
+            }
+    )
+    ResponseEntity<CollectionModel<PersonDTO>> findAll(
+            @RequestParam(value = "after", required = false) Long after,
+            @RequestParam(value = "before", required = false) Long before,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @Parameter(hidden = true) WebRequest request);
+
+    @Operation(
+            summary = "Find People by ID",
+            description = "Finds up to 100 People by ID in one request (ids=1,2,3), in the order asked. IDs that " +
+                    "don't exist are left out and listed in the X-Missing-Ids header",
+            tags = {"People"},
+            responses = {
+                    @ApiResponse(description = "Success", responseCode = "200", content = {
+                            @Content(mediaType = MediaType.APPLICATION_JSON_VALUE)
+                    }),
+                    @ApiResponse(description = "Bad Request", responseCode = "400", content = @Content),
+                    @ApiResponse(description = "Unauthorized", responseCode = "401", content = @Content),
+                    @ApiResponse(description = "Internal Server Error", responseCode = "500", content = @Content)
+            }
+    )
+    ResponseEntity<CollectionModel<PersonDTO>> findAllById(@RequestParam(value = "ids") List<Long> ids);
+
+    @Operation(
+            summary = "Autocomplete People names",
+            description = "Type-ahead over the names of enabled people: matches a prefix of the first name, the " +
+                    "last name or the full name in either order, ignoring case and accents, from an in-memory index",
             tags = {"People"},
             responses = {
                     @ApiResponse(description = "Success", responseCode = "200", content = {
                             @Content(
                                     mediaType = MediaType.APPLICATION_JSON_VALUE,
-                                    array = @ArraySchema(schema = @Schema(implementation = PersonDTO.class))
+                                    array = @ArraySchema(schema = @Schema(implementation = NameSuggestionDTO.class))
                             )
                     }),
-                    @ApiResponse(description = "No Content", responseCode = "204", content = @Content),
+                    @ApiResponse(description = "Bad Request", responseCode = "400", content = @Content),
+                    @ApiResponse(description = "Unauthorized", responseCode = "401", content = @Content),
+                    @ApiResponse(description = "Internal Server Error", responseCode = "500", content = @Content)
+            }
+    )
+    List<NameSuggestionDTO> autocomplete(
+            @RequestParam(value = "q") String prefix,
+            @RequestParam(value = "limit", required = false) Integer limit);
+
+    @Operation(
+            summary = "Detect duplicate People",
+            description = "Starts a background run that groups enabled people whose name and address look alike " +
+                    "(MinHash signatures, LSH blocking). Returns the run in progress if there is one",
+            tags = {"People"},
+            responses = {
+                    @ApiResponse(description = "Accepted", responseCode = "202", content = {
+                            @Content(schema = @Schema(implementation = DuplicateReportDTO.class))
+                    }),
+                    @ApiResponse(description = "Unauthorized", responseCode = "401", content = @Content),
+                    @ApiResponse(description = "Internal Server Error", responseCode = "500", content = @Content)
+            }
+    )
+    ResponseEntity<DuplicateReportDTO> detectDuplicates();
+
+    @Operation(
+            summary = "Duplicate People report",
+            description = "The report of the last duplicate detection run: its status and the clusters found, " +
+                    "the most similar first",
+            tags = {"People"},
+            responses = {
+                    @ApiResponse(description = "Success", responseCode = "200", content = {
+                            @Content(schema = @Schema(implementation = DuplicateReportDTO.class))
+                    }),
                     @ApiResponse(description = "Unauthorized", responseCode = "401", content = @Content),
                     @ApiResponse(description = "Not Found", responseCode = "404", content = @Content),
                     @ApiResponse(description = "Internal Server Error", responseCode = "500", content = @Content)
             }
     )
-    ResponseEntity<List<PersonDTO>> findAll();
+    DuplicateReportDTO duplicates();
+
+    @Operation(
+            summary = "Stream all People",
+            description = "Streams every person straight from a database cursor as a JSON array, NDJSON, XML or YAML " +
+                    "sequence, without loading the whole list in memory",
+            tags = {"People"},
+            responses = {
+                    @ApiResponse(description = "Success", responseCode = "200", content = {
+                            @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    array = @ArraySchema(schema = @Schema(implementation = PersonDTO.class))
+                            ),
+                            @Content(
+                                    mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                                    schema = @Schema(implementation = PersonDTO.class)
+                            )
+                    }),
+                    @ApiResponse(description = "Unauthorized", responseCode = "401", content = @Content),
+                    @ApiResponse(description = "Internal Server Error", responseCode = "500", content = @Content)
+            }
+    )
+    void streamAll(@RequestHeader(value = HttpHeaders.ACCEPT, defaultValue = MediaType.ALL_VALUE) String accept,
+                   @Parameter(hidden = true) HttpServletResponse response) throws IOException;
+
+    @Operation(
+            summary = "Bulk create or upsert People",
+            description = "Reads a JSON array or an NDJSON stream of people and writes them in JDBC batches. " +
+                    "People with an existing ID are upserted, the others created. Answers one result per item, " +
+                    "in order, as a JSON array or NDJSON",
+            tags = {"People"},
+            responses = {
+                    @ApiResponse(description = "Success", responseCode = "200", content = {
+                            @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    array = @ArraySchema(schema = @Schema(implementation = BulkResultDTO.class))
+                            ),
+                            @Content(
+                                    mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                                    schema = @Schema(implementation = BulkResultDTO.class)
+                            )
+                    }),
+                    @ApiResponse(description = "Bad Request", responseCode = "400", content = @Content),
+                    @ApiResponse(description = "Unauthorized", responseCode = "401", content = @Content),
+                    @ApiResponse(description = "Internal Server Error", responseCode = "500", content = @Content)
+            }
+    )
+    void bulkCreate(@RequestHeader(value = HttpHeaders.ACCEPT, defaultValue = MediaType.ALL_VALUE) String accept,
+                    @Parameter(hidden = true) HttpServletRequest request,
+                    @Parameter(hidden = true) HttpServletResponse response) throws IOException;
 
     @Operation(
             summary = "Finds a Person",
-            description = "Find a specific person by your ID",
+            description = "Find a specific person by your ID. Sends ETag (one per representation)/Last-Modified and answers If-None-Match with 304",
             tags = {"People"},
             responses = {
                     @ApiResponse(
@@ -46,10 +179,11 @@ public interface PersonControllerDocs {
                     @ApiResponse(description = "No Content", responseCode = "204", content = @Content),
                     @ApiResponse(description = "Unauthorized", responseCode = "401", content = @Content),
                     @ApiResponse(description = "Not Found", responseCode = "404", content = @Content),
+                    @ApiResponse(description = "Not Modified", responseCode = "304", content = @Content),
                     @ApiResponse(description = "Internal Server Error", responseCode = "500", content = @Content)
             }
     )
-    ResponseEntity<PersonDTO> findById(@PathVariable("id") Long id);
+    ResponseEntity<PersonDTO> findById(@PathVariable("id") Long id, @Parameter(hidden = true) WebRequest request);
 
     @Operation(
             summary = "Add a new Person",
@@ -80,10 +214,42 @@ public interface PersonControllerDocs {
                     @ApiResponse(description = "No Content", responseCode = "204", content = @Content),
                     @ApiResponse(description = "Unauthorized", responseCode = "401", content = @Content),
                     @ApiResponse(description = "Not Found", responseCode = "404", content = @Content),
+                    @ApiResponse(description = "Precondition Failed", responseCode = "412", content = @Content),
+                    @ApiResponse(description = "Internal Server Error", responseCode = "500", content = @Content)
+            }
+    )
+    ResponseEntity<PersonDTO> update(
+            @RequestBody PersonDTO person,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @Parameter(description = "return=minimal answers 204 with the new ETag, without the representation")
+            @RequestHeader(value = "Prefer", required = false) String prefer);
+
+    @Operation(
+            summary = "Partially updates a Person",
+            description = "Applies a JSON Merge Patch (application/merge-patch+json) or a JSON Patch " +
+                    "(application/json-patch+json) to the person; only the changed columns are written and a patch " +
+                    "that changes nothing writes nothing",
+            tags = {"People"},
+            responses = {
+                    @ApiResponse(
+                            description = "Success",
+                            responseCode = "200",
+                            content = @Content(schema = @Schema(implementation = PersonDTO.class))),
+                    @ApiResponse(description = "No Content", responseCode = "204", content = @Content),
+                    @ApiResponse(description = "Bad Request", responseCode = "400", content = @Content),
+                    @ApiResponse(description = "Unauthorized", responseCode = "401", content = @Content),
+                    @ApiResponse(description = "Not Found", responseCode = "404", content = @Content),
+                    @ApiResponse(description = "Precondition Failed", responseCode = "412", content = @Content),
                     @ApiResponse(description = "Internal Server Error", responseCode = "500", content = @Content)
             }
     )
-    ResponseEntity<PersonDTO> update(@RequestBody PersonDTO person);
+    ResponseEntity<PersonDTO> patch(
+            @PathVariable("id") Long id,
+            @RequestBody JsonNode patch,
+            @Parameter(hidden = true) @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @Parameter(description = "return=minimal answers 204 with the new ETag, without the representation")
+            @RequestHeader(value = "Prefer", required = false) String prefer);
 
     @Operation(
             summary = "Disabled a Person",
@@ -97,10 +263,15 @@ public interface PersonControllerDocs {
                     @ApiResponse(description = "No Content", responseCode = "204", content = @Content),
                     @ApiResponse(description = "Unauthorized", responseCode = "401", content = @Content),
                     @ApiResponse(description = "Not Found", responseCode = "404", content = @Content),
+                    @ApiResponse(description = "Precondition Failed", responseCode = "412", content = @Content),
                     @ApiResponse(description = "Internal Server Error", responseCode = "500", content = @Content)
             }
     )
-    ResponseEntity<PersonDTO> disabledPerson(@PathVariable("id") Long id);
+    ResponseEntity<PersonDTO> disabledPerson(
+            @PathVariable("id") Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @Parameter(description = "return=minimal answers 204 with the new ETag, without the representation")
+            @RequestHeader(value = "Prefer", required = false) String prefer);
 
     @Operation(
             summary = "Deletes a Person",
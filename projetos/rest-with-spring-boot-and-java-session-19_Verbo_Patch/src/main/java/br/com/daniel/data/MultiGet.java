@@ -0,0 +1,9 @@
+package br.com.daniel.data;
+
+import org.springframework.hateoas.CollectionModel;
+
+import java.util.List;
+
+// answer to a ?ids= lookup: what was found, in the order asked, and the ids that weren't
+public record MultiGet<T>(CollectionModel<T> found, List<Long> missing) {
+}
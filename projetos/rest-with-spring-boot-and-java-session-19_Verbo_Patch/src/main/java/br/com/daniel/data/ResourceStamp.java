@@ -0,0 +1,67 @@
+package br.com.daniel.data;
+
+import org.springframework.http.ETag;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+// validators of a representation: a strong ETag and the Last-Modified time (epoch millis, -1 when unknown)
+public record ResourceStamp(String eTag, long lastModified) {
+
+    // the version of a row, then the representation it was sent in: "4-json", "4-xml-lean"
+    private static final Pattern ITEM_TAG = Pattern.compile("(\\d+)(?:-[a-z][a-z-]*)?");
+
+    public static ResourceStamp of(Long version, Instant updatedAt) {
+        return new ResourceStamp(quote(String.valueOf(version != null ? version : 0L)), millis(updatedAt));
+    }
+
+    // a page changes when a row is added/removed (count) or updated (latest updated_at). No Last-Modified: a
+    // delete doesn't move the latest updated_at, so If-Modified-Since alone would answer 304 after it
+    public static ResourceStamp ofCollection(long count, Instant lastUpdate) {
+        return new ResourceStamp(quote(count + "-" + millis(lastUpdate)), -1);
+    }
+
+    // the JSON, XML, YAML and lean bodies differ byte for byte: each gets its own strong tag
+    public ResourceStamp forRepresentation(String representation) {
+        if (representation == null || representation.isEmpty()) return this;
+        return new ResourceStamp(quote(ETag.create(eTag).tag() + "-" + representation), lastModified);
+    }
+
+    // If-Match absent or "*" always matches; weak tags never do (strong comparison). A write replaces every
+    // representation, so the tag of any of them names the version it expects
+    public boolean matches(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank()) return true;
+        String current = version(ETag.create(eTag));
+        return ETag.parse(ifMatch).stream()
+                .anyMatch(tag -> tag.isWildcard() || (current != null && current.equals(version(tag))));
+    }
+
+    // the versions an If-Match accepts, for a conditional UPDATE: null when any does (absent or "*"), empty when
+    // none can (weak or foreign tags only)
+    public static List<Long> versions(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank()) return null;
+        List<Long> versions = new ArrayList<>();
+        for (ETag tag : ETag.parse(ifMatch)) {
+            if (tag.isWildcard()) return null;
+            String version = version(tag);
+            if (version != null) versions.add(Long.valueOf(version));
+        }
+        return versions;
+    }
+
+    private static String version(ETag tag) {
+        if (tag.weak()) return null;
+        var matcher = ITEM_TAG.matcher(tag.tag());
+        return matcher.matches() ? matcher.group(1) : null;
+    }
+
+    private static String quote(String tag) {
+        return "\"" + tag + "\"";
+    }
+
+    private static long millis(Instant instant) {
+        return instant != null ? instant.toEpochMilli() : -1;
+    }
+}
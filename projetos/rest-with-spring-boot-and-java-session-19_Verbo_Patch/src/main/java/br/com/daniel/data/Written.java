@@ -0,0 +1,6 @@
+package br.com.daniel.data;
+
+// answer to a write: the validators of the row as the write's transaction left it, and its representation unless
+// the client asked for none (Prefer: return=minimal)
+public record Written<T>(ResourceStamp stamp, T representation) {
+}
@@ -0,0 +1,84 @@
+package br.com.daniel.data.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.Objects;
+
+// one sub-request of a batch: what would have been its own call (If-Match and Content-Type go in headers);
+// id is the client's own reference, echoed in the result
+public class BatchOperationDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String id;
+    private String method;
+    private String path;
+    private Map<String, String> headers;
+    private JsonNode body;
+
+    public BatchOperationDTO() {
+    }
+
+    public BatchOperationDTO(String id, String method, String path, Map<String, String> headers, JsonNode body) {
+        this.id = id;
+        this.method = method;
+        this.path = path;
+        this.headers = headers;
+        this.body = body;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public void setMethod(String method) {
+        this.method = method;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    public void setHeaders(Map<String, String> headers) {
+        this.headers = headers;
+    }
+
+    public JsonNode getBody() {
+        return body;
+    }
+
+    public void setBody(JsonNode body) {
+        this.body = body;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) return false;
+        BatchOperationDTO that = (BatchOperationDTO) o;
+        return Objects.equals(id, that.id) && Objects.equals(method, that.method) && Objects.equals(path, that.path)
+                && Objects.equals(headers, that.headers) && Objects.equals(body, that.body);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, method, path, headers, body);
+    }
+}
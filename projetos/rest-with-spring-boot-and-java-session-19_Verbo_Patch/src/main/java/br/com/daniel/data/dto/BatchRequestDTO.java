@@ -0,0 +1,50 @@
+package br.com.daniel.data.dto;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Objects;
+
+// operations run in the order given; atomic runs them in one transaction, all or nothing
+public class BatchRequestDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private boolean atomic;
+    private List<BatchOperationDTO> operations;
+
+    public BatchRequestDTO() {
+    }
+
+    public BatchRequestDTO(boolean atomic, List<BatchOperationDTO> operations) {
+        this.atomic = atomic;
+        this.operations = operations;
+    }
+
+    public boolean isAtomic() {
+        return atomic;
+    }
+
+    public void setAtomic(boolean atomic) {
+        this.atomic = atomic;
+    }
+
+    public List<BatchOperationDTO> getOperations() {
+        return operations;
+    }
+
+    public void setOperations(List<BatchOperationDTO> operations) {
+        this.operations = operations;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) return false;
+        BatchRequestDTO that = (BatchRequestDTO) o;
+        return atomic == that.atomic && Objects.equals(operations, that.operations);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(atomic, operations);
+    }
+}
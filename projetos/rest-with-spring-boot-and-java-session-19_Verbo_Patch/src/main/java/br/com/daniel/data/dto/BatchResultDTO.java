@@ -0,0 +1,100 @@
+package br.com.daniel.data.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.Objects;
+
+// outcome of one batch operation, in the order the operations were sent: the HTTP status and headers (ETag) it
+// would have had on its own, with the representation or the error message
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchResultDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private int index;
+    private String id;
+    private int status;
+    private Map<String, String> headers;
+    private Object body;
+    private String message;
+
+    public BatchResultDTO() {
+    }
+
+    public BatchResultDTO(int index, String id, int status, Map<String, String> headers, Object body, String message) {
+        this.index = index;
+        this.id = id;
+        this.status = status;
+        this.headers = headers;
+        this.body = body;
+        this.message = message;
+    }
+
+    public static BatchResultDTO failed(int index, String id, int status, String message) {
+        return new BatchResultDTO(index, id, status, null, null, message);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    public void setHeaders(Map<String, String> headers) {
+        this.headers = headers;
+    }
+
+    public Object getBody() {
+        return body;
+    }
+
+    public void setBody(Object body) {
+        this.body = body;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) return false;
+        BatchResultDTO that = (BatchResultDTO) o;
+        return index == that.index && status == that.status && Objects.equals(id, that.id)
+                && Objects.equals(headers, that.headers) && Objects.equals(body, that.body)
+                && Objects.equals(message, that.message);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(index, id, status, headers, body, message);
+    }
+}
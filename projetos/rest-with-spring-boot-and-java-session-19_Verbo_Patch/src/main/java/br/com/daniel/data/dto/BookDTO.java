@@ -1,11 +1,16 @@
 package br.com.daniel.data.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import org.springframework.hateoas.RepresentationModel;
+import org.springframework.hateoas.server.core.Relation;
 
 import java.io.Serializable;
+import java.time.Instant;
 import java.util.Date;
 import java.util.Objects;
 
+@Relation(collectionRelation = "books")
 public class BookDTO extends RepresentationModel<BookDTO> implements Serializable {
 
     private static final long serialVersionUID = 1L;
@@ -16,6 +21,16 @@ public class BookDTO extends RepresentationModel<BookDTO> implements Serializabl
     private Double price;
     private String title;
 
+    // sent as ETag / Last-Modified headers, not in the body
+    @JsonIgnore
+    private Long version;
+    @JsonIgnore
+    private Instant updatedAt;
+
+    // relevance of a search result; absent everywhere else
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Double score;
+
     public BookDTO() {}
 
     public Long getId() {
@@ -58,6 +73,30 @@ public class BookDTO extends RepresentationModel<BookDTO> implements Serializabl
         this.title = title;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public Double getScore() {
+        return score;
+    }
+
+    public void setScore(Double score) {
+        this.score = score;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (o == null || getClass() != o.getClass()) return false;
@@ -0,0 +1,78 @@
+package br.com.daniel.data.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+// outcome of one item of a bulk request, in the order the items were sent
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkResultDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public enum Status {CREATED, UPSERTED, FAILED}
+
+    private int index;
+    private Long id;
+    private Status status;
+    private String message;
+
+    public BulkResultDTO() {
+    }
+
+    public BulkResultDTO(int index, Long id, Status status, String message) {
+        this.index = index;
+        this.id = id;
+        this.status = status;
+        this.message = message;
+    }
+
+    public static BulkResultDTO failed(int index, String message) {
+        return new BulkResultDTO(index, null, Status.FAILED, message);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) return false;
+        BulkResultDTO that = (BulkResultDTO) o;
+        return index == that.index && Objects.equals(id, that.id) && status == that.status && Objects.equals(message, that.message);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(index, id, status, message);
+    }
+}
@@ -0,0 +1,50 @@
+package br.com.daniel.data.dto;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Objects;
+
+// people that are likely the same person; similarity is the estimated Jaccard of the weakest pair that joined them
+public class DuplicateClusterDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private double similarity;
+    private List<PersonDTO> people;
+
+    public DuplicateClusterDTO() {
+    }
+
+    public DuplicateClusterDTO(double similarity, List<PersonDTO> people) {
+        this.similarity = similarity;
+        this.people = people;
+    }
+
+    public double getSimilarity() {
+        return similarity;
+    }
+
+    public void setSimilarity(double similarity) {
+        this.similarity = similarity;
+    }
+
+    public List<PersonDTO> getPeople() {
+        return people;
+    }
+
+    public void setPeople(List<PersonDTO> people) {
+        this.people = people;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) return false;
+        DuplicateClusterDTO that = (DuplicateClusterDTO) o;
+        return Double.compare(similarity, that.similarity) == 0 && Objects.equals(people, that.people);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(similarity, people);
+    }
+}
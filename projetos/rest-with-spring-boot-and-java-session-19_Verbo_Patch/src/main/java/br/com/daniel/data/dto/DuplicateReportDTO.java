@@ -0,0 +1,104 @@
+package br.com.daniel.data.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+
+// the last duplicate detection run: how many people it read, how many pairs the blocking let through to scoring,
+// and the clusters found (the most similar first, at most duplicates.maxClusters)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class DuplicateReportDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String status;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private long people;
+    private long candidatePairs;
+    private Integer clusterCount;
+    private List<DuplicateClusterDTO> clusters;
+    private String message;
+
+    public DuplicateReportDTO() {
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(Instant startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(Instant finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public long getPeople() {
+        return people;
+    }
+
+    public void setPeople(long people) {
+        this.people = people;
+    }
+
+    public long getCandidatePairs() {
+        return candidatePairs;
+    }
+
+    public void setCandidatePairs(long candidatePairs) {
+        this.candidatePairs = candidatePairs;
+    }
+
+    public Integer getClusterCount() {
+        return clusterCount;
+    }
+
+    public void setClusterCount(Integer clusterCount) {
+        this.clusterCount = clusterCount;
+    }
+
+    public List<DuplicateClusterDTO> getClusters() {
+        return clusters;
+    }
+
+    public void setClusters(List<DuplicateClusterDTO> clusters) {
+        this.clusters = clusters;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) return false;
+        DuplicateReportDTO that = (DuplicateReportDTO) o;
+        return people == that.people && candidatePairs == that.candidatePairs && Objects.equals(status, that.status) && Objects.equals(startedAt, that.startedAt) && Objects.equals(finishedAt, that.finishedAt) && Objects.equals(clusterCount, that.clusterCount) && Objects.equals(clusters, that.clusters) && Objects.equals(message, that.message);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(status, startedAt, finishedAt, people, candidatePairs, clusterCount, clusters, message);
+    }
+}
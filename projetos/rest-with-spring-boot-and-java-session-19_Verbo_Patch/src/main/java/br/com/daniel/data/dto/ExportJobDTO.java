@@ -0,0 +1,132 @@
+package br.com.daniel.data.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.springframework.hateoas.RepresentationModel;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Objects;
+
+// progress of a background export: rows written out of the count taken when it started, and once done the file
+// size and until when it can be downloaded
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ExportJobDTO extends RepresentationModel<ExportJobDTO> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String id;
+    private String dataset;
+    private String format;
+    private String status;
+    private long rows;
+    private long total;
+    private Long size;
+    private Instant createdAt;
+    private Instant finishedAt;
+    private Instant expiresAt;
+    private String message;
+
+    public ExportJobDTO() {
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getDataset() {
+        return dataset;
+    }
+
+    public void setDataset(String dataset) {
+        this.dataset = dataset;
+    }
+
+    public String getFormat() {
+        return format;
+    }
+
+    public void setFormat(String format) {
+        this.format = format;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public void setRows(long rows) {
+        this.rows = rows;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public Long getSize() {
+        return size;
+    }
+
+    public void setSize(Long size) {
+        this.size = size;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(Instant finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) return false;
+        if (!super.equals(o)) return false;
+        ExportJobDTO that = (ExportJobDTO) o;
+        return rows == that.rows && total == that.total && Objects.equals(id, that.id) && Objects.equals(dataset, that.dataset) && Objects.equals(format, that.format) && Objects.equals(status, that.status) && Objects.equals(size, that.size) && Objects.equals(createdAt, that.createdAt) && Objects.equals(finishedAt, that.finishedAt) && Objects.equals(expiresAt, that.expiresAt) && Objects.equals(message, that.message);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(super.hashCode(), id, dataset, format, status, rows, total, size, createdAt, finishedAt, expiresAt, message);
+    }
+}
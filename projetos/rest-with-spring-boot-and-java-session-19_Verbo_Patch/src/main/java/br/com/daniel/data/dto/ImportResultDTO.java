@@ -0,0 +1,72 @@
+package br.com.daniel.data.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+// outcome of a streaming import: rows committed, throughput, and why it stopped early (if it did)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ImportResultDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private long rows;
+    private long millis;
+    private long rowsPerSecond;
+    private String message;
+
+    public ImportResultDTO() {
+    }
+
+    public ImportResultDTO(long rows, long millis, String message) {
+        this.rows = rows;
+        this.millis = millis;
+        this.rowsPerSecond = millis > 0 ? rows * 1000 / millis : rows;
+        this.message = message;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public void setRows(long rows) {
+        this.rows = rows;
+    }
+
+    public long getMillis() {
+        return millis;
+    }
+
+    public void setMillis(long millis) {
+        this.millis = millis;
+    }
+
+    public long getRowsPerSecond() {
+        return rowsPerSecond;
+    }
+
+    public void setRowsPerSecond(long rowsPerSecond) {
+        this.rowsPerSecond = rowsPerSecond;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) return false;
+        ImportResultDTO that = (ImportResultDTO) o;
+        return rows == that.rows && millis == that.millis && rowsPerSecond == that.rowsPerSecond && Objects.equals(message, that.message);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(rows, millis, rowsPerSecond, message);
+    }
+}
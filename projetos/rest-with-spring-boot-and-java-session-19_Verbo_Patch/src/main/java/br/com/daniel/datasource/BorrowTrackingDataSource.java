@@ -0,0 +1,45 @@
+package br.com.daniel.datasource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+// sits between the lazy proxy and the pool: every call that reaches it is a physical borrow, noted for the request
+// running on this thread (if any is being tracked)
+public class BorrowTrackingDataSource extends DelegatingDataSource {
+
+    private static final ThreadLocal<Boolean> borrowed = new ThreadLocal<>();
+
+    public BorrowTrackingDataSource(DataSource target) {
+        super(target);
+    }
+
+    public static void track() {
+        borrowed.set(Boolean.FALSE);
+    }
+
+    // whether the tracked request borrowed a connection; stops tracking
+    public static boolean untrack() {
+        boolean result = Boolean.TRUE.equals(borrowed.get());
+        borrowed.remove();
+        return result;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        mark();
+        return super.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        mark();
+        return super.getConnection(username, password);
+    }
+
+    private static void mark() {
+        if (borrowed.get() != null) borrowed.set(Boolean.TRUE);
+    }
+}
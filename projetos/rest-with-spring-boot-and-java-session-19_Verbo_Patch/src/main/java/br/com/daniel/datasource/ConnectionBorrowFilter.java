@@ -0,0 +1,49 @@
+package br.com.daniel.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+// db.connection.requests{borrowed=false} counts the requests answered without taking a connection from the pool
+// (response cache hits, second-level hits, 304s...), borrowed=true the rest
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ConnectionBorrowFilter extends OncePerRequestFilter {
+
+    public static final String METRIC = "db.connection.requests";
+
+    private final Counter borrowed;
+    private final Counter notBorrowed;
+
+    public ConnectionBorrowFilter(MeterRegistry registry) {
+        this.borrowed = counter(registry, true);
+        this.notBorrowed = counter(registry, false);
+    }
+
+    private static Counter counter(MeterRegistry registry, boolean borrowed) {
+        return Counter.builder(METRIC)
+                .description("HTTP requests by whether they borrowed a pooled JDBC connection")
+                .tag("borrowed", String.valueOf(borrowed))
+                .register(registry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        BorrowTrackingDataSource.track();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            (BorrowTrackingDataSource.untrack() ? borrowed : notBorrowed).increment();
+        }
+    }
+}
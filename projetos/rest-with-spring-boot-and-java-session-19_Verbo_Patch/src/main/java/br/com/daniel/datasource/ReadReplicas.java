@@ -0,0 +1,41 @@
+package br.com.daniel.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+// one read-only Hikari pool per readReplicas.urls entry. The pools start on first use, so a replica that is down at
+// boot doesn't stop the application, and a short connection timeout makes a dead replica fail fast
+public class ReadReplicas implements AutoCloseable {
+
+    private final List<HikariDataSource> pools = new ArrayList<>();
+
+    public ReadReplicas(List<String> urls, String username, String password, Duration connectionTimeout) {
+        for (String url : urls) {
+            if (url == null || url.isBlank()) continue;
+            var pool = new HikariDataSource();
+            pool.setPoolName("replica-" + pools.size());
+            pool.setJdbcUrl(url.trim());
+            pool.setUsername(username);
+            pool.setPassword(password);
+            pool.setReadOnly(true);
+            pool.setConnectionTimeout(connectionTimeout.toMillis());
+            pools.add(pool);
+        }
+    }
+
+    public List<HikariDataSource> pools() {
+        return pools;
+    }
+
+    public boolean isEmpty() {
+        return pools.isEmpty();
+    }
+
+    @Override
+    public void close() {
+        pools.forEach(HikariDataSource::close);
+    }
+}
@@ -0,0 +1,90 @@
+package br.com.daniel.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// read-only transactions go to the replicas (round robin), everything else to the primary. It must sit behind the
+// LazyConnectionDataSourceProxy: the read-only flag of the transaction is only known once it has begun, i.e. at the
+// first statement. A replica that fails to hand out a connection is skipped for retryAfter; with none left the
+// read falls back to the primary
+public class ReplicaRoutingDataSource extends AbstractDataSource {
+
+    private static final ThreadLocal<Boolean> primaryOnly = new ThreadLocal<>();
+
+    private final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class.getName());
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final long retryAfter;
+    private final AtomicInteger next = new AtomicInteger();
+
+    private static final class Replica {
+        final DataSource dataSource;
+        volatile long downUntil;
+
+        Replica(DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+    }
+
+    public ReplicaRoutingDataSource(DataSource primary, List<? extends DataSource> replicas, Duration retryAfter) {
+        this.primary = primary;
+        this.replicas = replicas.stream().map(Replica::new).toList();
+        this.retryAfter = retryAfter.toMillis();
+    }
+
+    // read-your-writes: the reads of the current request stay on the primary
+    public static void usePrimary() {
+        primaryOnly.set(Boolean.TRUE);
+    }
+
+    public static void clear() {
+        primaryOnly.remove();
+    }
+
+    public static boolean isPrimaryOnly() {
+        return Boolean.TRUE.equals(primaryOnly.get());
+    }
+
+    public DataSource getPrimary() {
+        return primary;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!readsFromReplica()) return primary.getConnection();
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.downUntil > System.currentTimeMillis()) continue;
+            try {
+                return replica.dataSource.getConnection();
+            } catch (SQLException e) {
+                replica.downUntil = System.currentTimeMillis() + retryAfter;
+                logger.warn("Replica unavailable, reads fall back for {} ms: {}", retryAfter, e.getMessage());
+            }
+        }
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLException("Connections are configured per pool, not per call");
+    }
+
+    private boolean readsFromReplica() {
+        return !replicas.isEmpty()
+                && TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && !isPrimaryOnly();
+    }
+}
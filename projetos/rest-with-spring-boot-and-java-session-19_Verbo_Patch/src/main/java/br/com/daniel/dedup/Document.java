@@ -0,0 +1,5 @@
+package br.com.daniel.dedup;
+
+// what duplicate detection compares: a person's id and name + address as one text
+public record Document(Long id, String text) {
+}
@@ -0,0 +1,201 @@
+package br.com.daniel.dedup;
+
+import br.com.daniel.autocomplete.PersonNameIndex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+// near-duplicate detection without comparing every pair. Each document becomes the set of character trigrams of its
+// normalized text and a MinHash signature of that set: the fraction of positions where two signatures agree
+// estimates the Jaccard similarity of the two sets. Blocking is LSH banding: signatures are cut into bands and only
+// documents sharing a whole band somewhere are ever compared. Signatures, bands and scoring run on the given
+// fork/join pool; the cost grows with the number of documents and the pairs inside the (capped) buckets, not with
+// the square of the documents
+public class MinHashDeduplicator {
+
+    public record Cluster(List<Long> ids, double similarity) {
+    }
+
+    public record Result(long candidatePairs, List<Cluster> clusters) {
+    }
+
+    // a band key keeps 40 bits of the band hash and the document index the other 24
+    static final int MAX_DOCUMENTS = 1 << 24;
+    private static final int INDEX_BITS = 24;
+    private static final long INDEX_MASK = (1L << INDEX_BITS) - 1;
+
+    private final int hashes;
+    private final int bands;
+    private final int rows;
+    private final double threshold;
+    private final int maxBucket;
+    private final ForkJoinPool pool;
+    private final int[] seeds;
+
+    private long[] ids = new long[1024];
+    private int[][] signatures = new int[1024][];
+    private int size;
+
+    public MinHashDeduplicator(int hashes, int bands, double threshold, int maxBucket, ForkJoinPool pool) {
+        if (hashes % bands != 0) throw new IllegalArgumentException("hashes must be a multiple of bands");
+        this.hashes = hashes;
+        this.bands = bands;
+        this.rows = hashes / bands;
+        this.threshold = threshold;
+        this.maxBucket = maxBucket;
+        this.pool = pool;
+        // fixed seeds: the same data always gives the same clusters
+        this.seeds = IntStream.range(0, hashes).map(i -> mix(0x9E3779B9 * (i + 1))).toArray();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // signatures of a chunk are computed in parallel; only the id and the signature are kept
+    public void addAll(List<Document> documents) {
+        if (size + documents.size() > MAX_DOCUMENTS) {
+            throw new IllegalStateException("Duplicate detection is limited to " + MAX_DOCUMENTS + " people");
+        }
+        int[][] chunk = pool.submit(() -> documents.parallelStream()
+                .map(document -> signature(document.text()))
+                .toArray(int[][]::new)).join();
+        if (size + chunk.length > ids.length) {
+            int capacity = Math.max(ids.length * 2, size + chunk.length);
+            ids = Arrays.copyOf(ids, capacity);
+            signatures = Arrays.copyOf(signatures, capacity);
+        }
+        for (int i = 0; i < chunk.length; i++) {
+            ids[size] = documents.get(i).id();
+            signatures[size++] = chunk[i];
+        }
+    }
+
+    // candidate pairs from the bands, scored on the whole signature; pairs at or above the threshold are linked and
+    // each connected group is a cluster, most similar first
+    public Result detect() {
+        long[] candidates = candidates();
+        long[] matches = pool.submit(() -> LongStream.of(candidates).parallel()
+                .filter(pair -> similarity((int) (pair >>> 32), (int) pair) >= threshold)
+                .toArray()).join();
+
+        int[] parent = IntStream.range(0, size).toArray();
+        for (long pair : matches) {
+            int a = root(parent, (int) (pair >>> 32));
+            int b = root(parent, (int) pair);
+            if (a != b) parent[Math.max(a, b)] = Math.min(a, b);
+        }
+
+        // a cluster's similarity is its weakest link
+        Map<Integer, List<Long>> members = new HashMap<>();
+        Map<Integer, Double> weakest = new HashMap<>();
+        for (long pair : matches) {
+            int cluster = root(parent, (int) (pair >>> 32));
+            weakest.merge(cluster, similarity((int) (pair >>> 32), (int) pair), Math::min);
+        }
+        for (int i = 0; i < size; i++) {
+            int cluster = root(parent, i);
+            if (weakest.containsKey(cluster)) members.computeIfAbsent(cluster, key -> new ArrayList<>()).add(ids[i]);
+        }
+        List<Cluster> clusters = new ArrayList<>(members.size());
+        members.forEach((cluster, people) -> clusters.add(new Cluster(people, weakest.get(cluster))));
+        clusters.sort(Comparator.comparingDouble(Cluster::similarity).reversed()
+                .thenComparing(cluster -> cluster.ids().getFirst()));
+        return new Result(candidates.length, clusters);
+    }
+
+    // every band in parallel: sort (band hash, index) keys so a bucket is a run of equal hashes, and pair up its
+    // members. Buckets over maxBucket are skipped: a band that common (blank or placeholder text) says nothing
+    long[] candidates() {
+        List<long[]> perBand = pool.submit(() -> IntStream.range(0, bands).parallel()
+                .mapToObj(this::bandCandidates)
+                .toList()).join();
+        return perBand.stream()
+                .flatMapToLong(LongStream::of)
+                .sorted()
+                .distinct()
+                .toArray();
+    }
+
+    private long[] bandCandidates(int band) {
+        long[] keys = new long[size];
+        for (int i = 0; i < size; i++) {
+            long hash = 1125899906842597L;
+            for (int r = band * rows; r < (band + 1) * rows; r++) hash = 31 * hash + signatures[i][r];
+            keys[i] = (mix64(hash) << INDEX_BITS) | i;
+        }
+        Arrays.sort(keys);
+        LongStream.Builder pairs = LongStream.builder();
+        int start = 0;
+        for (int end = 1; end <= size; end++) {
+            if (end < size && keys[end] >>> INDEX_BITS == keys[start] >>> INDEX_BITS) continue;
+            if (end - start > 1 && end - start <= maxBucket) {
+                for (int a = start; a < end; a++) {
+                    for (int b = a + 1; b < end; b++) {
+                        pairs.add(((keys[a] & INDEX_MASK) << 32) | (keys[b] & INDEX_MASK));
+                    }
+                }
+            }
+            start = end;
+        }
+        return pairs.build().toArray();
+    }
+
+    double similarity(int a, int b) {
+        int same = 0;
+        for (int i = 0; i < hashes; i++) {
+            if (signatures[a][i] == signatures[b][i]) same++;
+        }
+        return (double) same / hashes;
+    }
+
+    // min over the trigrams of each of the seeded hash functions; text too short for a trigram is its own shingle
+    int[] signature(String text) {
+        String normalized = " " + PersonNameIndex.normalize(text) + " ";
+        int[] signature = new int[hashes];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        int shingles = Math.max(1, normalized.length() - 2);
+        for (int s = 0; s < shingles; s++) {
+            int shingle = normalized.substring(s, Math.min(normalized.length(), s + 3)).hashCode();
+            for (int i = 0; i < hashes; i++) {
+                int hash = mix(shingle ^ seeds[i]);
+                if (hash < signature[i]) signature[i] = hash;
+            }
+        }
+        return signature;
+    }
+
+    private static int root(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    // MurmurHash3 finalizers: spread every input bit over the whole output
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    private static long mix64(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,12 @@
+package br.com.daniel.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class ExportNotReadyException extends RuntimeException {
+
+    public ExportNotReadyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,12 @@
+package br.com.daniel.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class UnsupportedExportException extends RuntimeException {
+
+    public UnsupportedExportException(String message) {
+        super(message);
+    }
+}
@@ -1,9 +1,19 @@
 package br.com.daniel.exception.handler;
 
 import br.com.daniel.exception.ExceptionResponse;
+import br.com.daniel.exception.ExportNotReadyException;
+import br.com.daniel.exception.InvalidImportException;
+import br.com.daniel.exception.InvalidPatchException;
+import br.com.daniel.exception.LimitExceededException;
+import br.com.daniel.exception.PreconditionFailedException;
 import br.com.daniel.exception.RequiredObjectIsNullException;
 import br.com.daniel.exception.ResourceNotFoundException;
+import br.com.daniel.exception.UnsupportedExportException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -37,7 +47,8 @@ public class CustomEntityResponseHandler extends ResponseEntityExceptionHandler
         return new ResponseEntity<>(response, HttpStatus.NOT_FOUND);
     }
 
-    @ExceptionHandler(RequiredObjectIsNullException.class)
+    @ExceptionHandler({RequiredObjectIsNullException.class, InvalidPatchException.class, UnsupportedExportException.class,
+            InvalidImportException.class, LimitExceededException.class})
     public final ResponseEntity<ExceptionResponse> handleBadRequestExceptions(Exception ex, WebRequest request) {
         ExceptionResponse response = new ExceptionResponse(
                 new Date(),
@@ -47,4 +58,39 @@ public class CustomEntityResponseHandler extends ResponseEntityExceptionHandler
         return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
     }
 
+    // If-Match mismatch, or a concurrent write caught by the @Version check at flush time
+    @ExceptionHandler({PreconditionFailedException.class, ObjectOptimisticLockingFailureException.class})
+    public final ResponseEntity<ExceptionResponse> handlePreconditionFailedExceptions(Exception ex, WebRequest request) {
+        ExceptionResponse response = new ExceptionResponse(
+                new Date(),
+                ex.getMessage(),
+                request.getDescription(false)
+        );
+        return new ResponseEntity<>(response, HttpStatus.PRECONDITION_FAILED);
+    }
+
+    // the export job is still running, or it failed and there is no file to download
+    @ExceptionHandler(ExportNotReadyException.class)
+    public final ResponseEntity<ExceptionResponse> handleConflictExceptions(Exception ex, WebRequest request) {
+        ExceptionResponse response = new ExceptionResponse(
+                new Date(),
+                ex.getMessage(),
+                request.getDescription(false)
+        );
+        return new ResponseEntity<>(response, HttpStatus.CONFLICT);
+    }
+
+    // no connection within the pool's connection-timeout (or no database at all): the client may retry shortly
+    @ExceptionHandler({CannotCreateTransactionException.class, DataAccessResourceFailureException.class})
+    public final ResponseEntity<ExceptionResponse> handleUnavailableExceptions(Exception ex, WebRequest request) {
+        ExceptionResponse response = new ExceptionResponse(
+                new Date(),
+                ex.getMessage(),
+                request.getDescription(false)
+        );
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(response);
+    }
+
 }
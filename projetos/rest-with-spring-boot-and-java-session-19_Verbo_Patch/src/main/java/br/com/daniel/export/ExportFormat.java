@@ -0,0 +1,38 @@
+package br.com.daniel.export;
+
+import br.com.daniel.exception.UnsupportedExportException;
+import br.com.daniel.serialization.streaming.StreamingWriterFactory;
+import org.springframework.http.MediaType;
+
+// what an export job writes: the formats /stream speaks plus CSV, named the way clients pass them (?format=csv)
+public enum ExportFormat {
+
+    JSON(MediaType.APPLICATION_JSON, "json"),
+    NDJSON(MediaType.APPLICATION_NDJSON, "ndjson"),
+    XML(MediaType.APPLICATION_XML, "xml"),
+    YAML(MediaType.APPLICATION_YAML, "yaml"),
+    CSV(MediaType.parseMediaType(StreamingWriterFactory.TEXT_CSV_VALUE), "csv");
+
+    private final MediaType mediaType;
+    private final String extension;
+
+    ExportFormat(MediaType mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public static ExportFormat of(String name) {
+        for (ExportFormat format : values()) {
+            if (format.extension.equalsIgnoreCase(name)) return format;
+        }
+        throw new UnsupportedExportException("Unsupported export format: " + name);
+    }
+}
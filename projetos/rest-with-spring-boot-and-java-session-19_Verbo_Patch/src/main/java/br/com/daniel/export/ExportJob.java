@@ -0,0 +1,144 @@
+package br.com.daniel.export;
+
+import br.com.daniel.exception.UnsupportedExportException;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+// one background export: written by the export thread, read by status requests, so every field is safe to read
+// while the job runs
+public class ExportJob {
+
+    public enum Dataset {
+        PERSON, BOOK;
+
+        // the same word the resource paths use: /api/person/v1, /api/export/v1/person
+        public String getName() {
+            return name().toLowerCase();
+        }
+
+        public static Dataset of(String name) {
+            for (Dataset dataset : values()) {
+                if (dataset.getName().equalsIgnoreCase(name)) return dataset;
+            }
+            throw new UnsupportedExportException("Unsupported export dataset: " + name);
+        }
+    }
+
+    public enum Status {QUEUED, RUNNING, DONE, FAILED}
+
+    private final String id;
+    private final Dataset dataset;
+    private final ExportFormat format;
+    private final Path file;
+    private final Instant createdAt = Instant.now();
+    private final AtomicLong rows = new AtomicLong();
+
+    private volatile Status status = Status.QUEUED;
+    private volatile long total;
+    private volatile long size;
+    private volatile Instant finishedAt;
+    private volatile String message;
+    private volatile Future<?> task;
+
+    public ExportJob(Dataset dataset, ExportFormat format, Path directory) {
+        this.id = UUID.randomUUID().toString();
+        this.dataset = dataset;
+        this.format = format;
+        this.file = directory.resolve(getFileName());
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Dataset getDataset() {
+        return dataset;
+    }
+
+    public ExportFormat getFormat() {
+        return format;
+    }
+
+    // the finished file; rows are written to a ".part" sibling and moved here once complete
+    public Path getFile() {
+        return file;
+    }
+
+    public Path getPartFile() {
+        return file.resolveSibling(file.getFileName() + ".part");
+    }
+
+    public String getFileName() {
+        return dataset.getName() + "-" + id + "." + format.getExtension();
+    }
+
+    // the file never changes once written, so the job id is a strong validator for If-Range
+    public String getETag() {
+        return "\"" + id + "\"";
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public long getRows() {
+        return rows.get();
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public Future<?> getTask() {
+        return task;
+    }
+
+    public void setTask(Future<?> task) {
+        this.task = task;
+    }
+
+    public boolean isFinished() {
+        return status == Status.DONE || status == Status.FAILED;
+    }
+
+    public void started(long total) {
+        this.total = total;
+        this.status = Status.RUNNING;
+    }
+
+    public void rowWritten() {
+        rows.incrementAndGet();
+    }
+
+    public void finished(long size) {
+        this.size = size;
+        this.finishedAt = Instant.now();
+        this.status = Status.DONE;
+    }
+
+    public void failed(String message) {
+        this.message = message;
+        this.finishedAt = Instant.now();
+        this.status = Status.FAILED;
+    }
+}
@@ -0,0 +1,45 @@
+package br.com.daniel.hateoas;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.Comparator;
+
+// clients that never follow links ask for "Accept: application/json;profile=lean" (or xml/yaml with the same
+// profile) and get the flat DTOs: the services skip the HATEOAS links entirely
+public final class LeanRepresentation {
+
+    public static final String PROFILE = "lean";
+
+    private static final String LEAN_ATTRIBUTE = LeanRepresentation.class.getName() + ".LEAN";
+
+    private LeanRepresentation() {
+    }
+
+    // resolved once per request; false outside a request so services keep building links by default
+    public static boolean requested() {
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) return false;
+        HttpServletRequest request = attributes.getRequest();
+        if (request.getAttribute(LEAN_ATTRIBUTE) instanceof Boolean lean) return lean;
+        boolean lean = isLean(request.getHeader(HttpHeaders.ACCEPT));
+        request.setAttribute(LEAN_ATTRIBUTE, lean);
+        return lean;
+    }
+
+    // only the preferred media type counts: "application/hal+json, application/json;profile=lean;q=0.5" stays HAL
+    public static boolean isLean(String accept) {
+        if (accept == null || accept.isBlank()) return false;
+        try {
+            return MediaType.parseMediaTypes(accept).stream()
+                    .max(Comparator.comparingDouble(MediaType::getQualityValue))
+                    .map(preferred -> PROFILE.equals(preferred.getParameter("profile")))
+                    .orElse(false);
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package br.com.daniel.hateoas;
+
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.hateoas.Link;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+// replaces linkTo(methodOn(...)): the controller route is resolved once, the base URI once per request,
+// and each link is just the two strings concatenated with the id
+public final class LinkTemplate {
+
+    private static final String BASE_URI_ATTRIBUTE = LinkTemplate.class.getName() + ".BASE_URI";
+
+    private final String path;
+
+    private LinkTemplate(String path) {
+        this.path = path;
+    }
+
+    public static LinkTemplate of(Class<?> controller) {
+        RequestMapping mapping = AnnotatedElementUtils.findMergedAnnotation(controller, RequestMapping.class);
+        if (mapping == null || mapping.path().length == 0) {
+            throw new IllegalArgumentException(controller.getName() + " has no @RequestMapping path");
+        }
+        return new LinkTemplate(mapping.path()[0]);
+    }
+
+    public String path() {
+        return path;
+    }
+
+    public String collection() {
+        return baseUri() + path;
+    }
+
+    public String item(Object id) {
+        return collection() + "/" + id;
+    }
+
+    public Link collection(String rel, String type) {
+        return Link.of(collection()).withRel(rel).withType(type);
+    }
+
+    public Link item(Object id, String rel, String type) {
+        return Link.of(item(id)).withRel(rel).withType(type);
+    }
+
+    // scheme, host, port and context path of the current request; empty (relative links) outside a request
+    public static String baseUri() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) return "";
+        var baseUri = (String) attributes.getAttribute(BASE_URI_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (baseUri == null) {
+            baseUri = ServletUriComponentsBuilder.fromCurrentServletMapping().build().toUriString();
+            attributes.setAttribute(BASE_URI_ATTRIBUTE, baseUri, RequestAttributes.SCOPE_REQUEST);
+        }
+        return baseUri;
+    }
+}
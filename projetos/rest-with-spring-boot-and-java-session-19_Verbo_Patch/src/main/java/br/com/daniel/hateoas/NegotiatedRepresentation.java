@@ -0,0 +1,56 @@
+package br.com.daniel.hateoas;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+// the representation a request gets: the producible media type its Accept prefers, lean or not. It names the
+// response cache variant and goes into the ETag, so the JSON, XML, YAML and lean bodies of a resource never share
+// a strong validator
+public final class NegotiatedRepresentation {
+
+    private NegotiatedRepresentation() {
+    }
+
+    // the first producible type the most preferred accepted type is compatible with; null when none is
+    public static MediaType mediaType(String accept, Object producible) {
+        if (!(producible instanceof Set<?> types) || types.isEmpty()) return null;
+        List<MediaType> accepted;
+        try {
+            accepted = accept == null || accept.isBlank() ? List.of(MediaType.ALL) : MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return null;
+        }
+        return accepted.stream()
+                .sorted(Comparator.comparingDouble(MediaType::getQualityValue).reversed())
+                .filter(type -> type.getQualityValue() > 0)
+                .flatMap(type -> types.stream()
+                        .map(MediaType.class::cast)
+                        .filter(type::isCompatibleWith))
+                .findFirst()
+                .orElse(null);
+    }
+
+    // "json", "xml", "yaml", with "-lean" for the lean profile; empty when the handler declares nothing it produces
+    public static String of(HttpServletRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        MediaType mediaType = mediaType(accept, request.getAttribute(HandlerMapping.PRODUCIBLE_MEDIA_TYPES_ATTRIBUTE));
+        if (mediaType == null) return "";
+        return LeanRepresentation.isLean(accept) ? mediaType.getSubtype() + "-" + LeanRepresentation.PROFILE
+                : mediaType.getSubtype();
+    }
+
+    // of the current request; empty outside one
+    public static String current() {
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) return "";
+        return of(attributes.getRequest());
+    }
+}
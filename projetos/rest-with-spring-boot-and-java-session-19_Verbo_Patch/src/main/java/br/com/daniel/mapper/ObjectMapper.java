@@ -1,26 +1,75 @@
 package br.com.daniel.mapper;
 
-import com.github.dozermapper.core.DozerBeanMapperBuilder;
-import com.github.dozermapper.core.Mapper;
+import br.com.daniel.data.dto.BookDTO;
+import br.com.daniel.data.dto.PersonDTO;
+import br.com.daniel.mapper.custom.BookMapper;
+import br.com.daniel.mapper.custom.PersonMapper;
+import br.com.daniel.model.Book;
+import br.com.daniel.model.Person;
+import org.mapstruct.factory.Mappers;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.IntStream;
 
 public class ObjectMapper {
 
-    private static Mapper mapper = DozerBeanMapperBuilder.buildDefault();
+    private static final PersonMapper personMapper = Mappers.getMapper(PersonMapper.class);
+    private static final BookMapper bookMapper = Mappers.getMapper(BookMapper.class);
+
+    private static final Map<Route, Function<Object, Object>> routes = new HashMap<>();
+
+    static {
+        register(Person.class, PersonDTO.class, personMapper::convertEntityToDTO);
+        register(PersonDTO.class, Person.class, personMapper::convertDTOToEntity);
+        register(Book.class, BookDTO.class, bookMapper::convertEntityToDTO);
+        register(BookDTO.class, Book.class, bookMapper::convertDTOToEntity);
+        register(BookDTO.class, BookDTO.class, bookMapper::copy);
+    }
 
     public static <O, D> D parseObject(O origin, Class<D> destination) {
-        return mapper.map(origin, destination);
+        if (origin == null) return null;
+        return destination.cast(route(origin.getClass(), destination).apply(origin));
     }
 
     public static <O, D> List<D> parseListObjects(List<O> origin, Class<D> destination) {
+        return parseListObjects(origin, destination, false);
+    }
 
-        List<D> destinationObjects = new ArrayList<>();
-        origin.forEach(originItem -> {
-            destinationObjects.add(mapper.map(originItem, destination));
-        });
+    // parallel = true splits big lists across the common fork/join pool, the order is kept
+    public static <O, D> List<D> parseListObjects(List<O> origin, Class<D> destination, boolean parallel) {
+        List<D> destinationObjects = new ArrayList<>(origin.size());
+        if (!parallel) {
+            origin.forEach(originItem -> destinationObjects.add(parseObject(originItem, destination)));
+            return destinationObjects;
+        }
+        Object[] mapped = new Object[origin.size()];
+        IntStream.range(0, mapped.length).parallel()
+                .forEach(i -> mapped[i] = parseObject(origin.get(i), destination));
+        for (Object item : mapped) {
+            destinationObjects.add(destination.cast(item));
+        }
         return destinationObjects;
     }
 
+    @SuppressWarnings("unchecked")
+    private static <O, D> void register(Class<O> origin, Class<D> destination, Function<O, D> mapper) {
+        routes.put(new Route(origin, destination), (Function<Object, Object>) mapper);
+    }
+
+    // walks up the hierarchy so Hibernate proxies (subclasses of the entity) resolve to the entity mapper
+    private static Function<Object, Object> route(Class<?> origin, Class<?> destination) {
+        for (Class<?> type = origin; type != null; type = type.getSuperclass()) {
+            var mapper = routes.get(new Route(type, destination));
+            if (mapper != null) return mapper;
+        }
+        throw new IllegalArgumentException("No mapper registered from " + origin.getName() + " to " + destination.getName());
+    }
+
+    private record Route(Class<?> origin, Class<?> destination) {
+    }
+
 }
@@ -0,0 +1,19 @@
+package br.com.daniel.mapper.custom;
+
+import br.com.daniel.data.dto.BookDTO;
+import br.com.daniel.model.Book;
+import org.mapstruct.Mapper;
+import org.mapstruct.ReportingPolicy;
+
+// implementation generated by the MapStruct annotation processor at build time (BookMapperImpl)
+@Mapper(unmappedTargetPolicy = ReportingPolicy.IGNORE)
+public interface BookMapper {
+
+    BookDTO convertEntityToDTO(Book book);
+
+    Book convertDTOToEntity(BookDTO book);
+
+    // a fresh DTO with the same fields and no links
+    BookDTO copy(BookDTO book);
+
+}
@@ -0,0 +1,16 @@
+package br.com.daniel.mapper.custom;
+
+import br.com.daniel.data.dto.PersonDTO;
+import br.com.daniel.model.Person;
+import org.mapstruct.Mapper;
+import org.mapstruct.ReportingPolicy;
+
+// implementation generated by the MapStruct annotation processor at build time (PersonMapperImpl)
+@Mapper(unmappedTargetPolicy = ReportingPolicy.IGNORE)
+public interface PersonMapper {
+
+    PersonDTO convertEntityToDTO(Person person);
+
+    Person convertDTOToEntity(PersonDTO person);
+
+}
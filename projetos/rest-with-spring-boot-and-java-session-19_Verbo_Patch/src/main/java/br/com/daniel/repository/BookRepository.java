@@ -1,7 +1,32 @@
 package br.com.daniel.repository;
 
 import br.com.daniel.model.Book;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface BookRepository extends JpaRepository<Book, Long>, BookRepositoryCustom {
+
+    List<Book> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    List<Book> findByIdLessThanOrderByIdDesc(Long id, Limit limit);
+
+    // streamed row by row as in PersonRepository
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT e FROM Book e ORDER BY e.id")
+    Stream<Book> streamAll();
+
+    @Query("SELECT MAX(e.updatedAt) FROM Book e")
+    Instant findLastUpdate();
 
-public interface BookRepository extends JpaRepository<Book, Long> {
 }
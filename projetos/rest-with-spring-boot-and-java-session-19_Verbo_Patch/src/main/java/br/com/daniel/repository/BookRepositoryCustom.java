@@ -0,0 +1,36 @@
+package br.com.daniel.repository;
+
+import br.com.daniel.model.Book;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+public interface BookRepositoryCustom {
+
+    // a book matched by search() and its relevance; higher is better, only comparable within one query
+    record SearchHit(Book book, double score) {
+    }
+
+    // launch_date and price are NOT NULL: a patch can't remove them
+    Map<String, String> PATCHABLE_COLUMNS = Map.of(
+            "author", "author",
+            "launchDate", "launch_date",
+            "price", "price",
+            "title", "title");
+
+    Set<String> REQUIRED = Set.of("launchDate", "price");
+
+    int update(Book book, List<Long> versions);
+
+    int patch(Long id, Map<String, Object> changes, Long version);
+
+    void insertAll(List<Book> books);
+
+    int deleteRow(Long id);
+
+    List<SearchHit> search(String query, long offset, int limit);
+
+    Optional<Book> findRow(Long id);
+}
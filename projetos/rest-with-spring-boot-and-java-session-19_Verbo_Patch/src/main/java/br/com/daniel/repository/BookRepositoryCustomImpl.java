@@ -0,0 +1,94 @@
+package br.com.daniel.repository;
+
+import br.com.daniel.model.Book;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+// plain JDBC for the same reason as PersonRepositoryCustomImpl: the "book" second-level region survives the write
+public class BookRepositoryCustomImpl implements BookRepositoryCustom {
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbc;
+
+    @Override
+    public int update(Book book, List<Long> versions) {
+        if (VersionCondition.unsatisfiable(versions)) return 0;
+        var params = new MapSqlParameterSource()
+                .addValue("id", book.getId())
+                .addValue("author", book.getAuthor())
+                .addValue("launchDate", book.getLaunchDate())
+                .addValue("price", book.getPrice())
+                .addValue("title", book.getTitle());
+        return jdbc.update("UPDATE books SET author = :author, launch_date = :launchDate, price = :price, " +
+                "title = :title, version = version + 1 WHERE id = :id" + VersionCondition.where(versions, params), params);
+    }
+
+    // only the columns the patch changed, guarded by the version the patch was applied to
+    @Override
+    public int patch(Long id, Map<String, Object> changes, Long version) {
+        var params = new MapSqlParameterSource();
+        return jdbc.update(VersionCondition.patch("books", PATCHABLE_COLUMNS, changes, id, version, params), params);
+    }
+
+    // one JDBC batch, sent as a multi-row INSERT (rewriteBatchedStatements): IDENTITY ids rule out Hibernate's batching
+    @Override
+    public void insertAll(List<Book> books) {
+        var rows = books.stream()
+                .map(book -> new MapSqlParameterSource()
+                        .addValue("author", book.getAuthor())
+                        .addValue("launchDate", book.getLaunchDate())
+                        .addValue("price", book.getPrice())
+                        .addValue("title", book.getTitle()))
+                .toArray(MapSqlParameterSource[]::new);
+        jdbc.batchUpdate("INSERT INTO books (author, launch_date, price, title) " +
+                "VALUES (:author, :launchDate, :price, :title)", rows);
+    }
+
+    @Override
+    public int deleteRow(Long id) {
+        return jdbc.update("DELETE FROM books WHERE id = :id", new MapSqlParameterSource("id", id));
+    }
+
+    @Override
+    public Optional<Book> findRow(Long id) {
+        return jdbc.query("SELECT id, author, launch_date, price, title, version, updated_at FROM books WHERE id = :id",
+                new MapSqlParameterSource("id", id), (rs, row) -> book(rs)).stream().findFirst();
+    }
+
+    // natural language mode over the FULLTEXT index (V8): only matching rows are read and scored, MySQL evaluates
+    // the repeated MATCH once. The id tie-break keeps pages stable, at the cost of sorting the matches
+    @Override
+    public List<SearchHit> search(String query, long offset, int limit) {
+        var params = new MapSqlParameterSource()
+                .addValue("query", query)
+                .addValue("offset", offset)
+                .addValue("limit", limit);
+        return jdbc.query("SELECT id, author, launch_date, price, title, version, updated_at, " +
+                "MATCH (title, author) AGAINST (:query IN NATURAL LANGUAGE MODE) AS score FROM books " +
+                "WHERE MATCH (title, author) AGAINST (:query IN NATURAL LANGUAGE MODE) " +
+                "ORDER BY score DESC, id LIMIT :limit OFFSET :offset", params, BookRepositoryCustomImpl::hit);
+    }
+
+    private static SearchHit hit(ResultSet rs, int row) throws SQLException {
+        return new SearchHit(book(rs), rs.getDouble("score"));
+    }
+
+    private static Book book(ResultSet rs) throws SQLException {
+        var book = new Book();
+        book.setId(rs.getLong("id"));
+        book.setAuthor(rs.getString("author"));
+        book.setLaunchDate(rs.getTimestamp("launch_date"));
+        book.setPrice(rs.getDouble("price"));
+        book.setTitle(rs.getString("title"));
+        book.setVersion(rs.getLong("version"));
+        book.setUpdatedAt(rs.getTimestamp("updated_at").toInstant());
+        return book;
+    }
+}
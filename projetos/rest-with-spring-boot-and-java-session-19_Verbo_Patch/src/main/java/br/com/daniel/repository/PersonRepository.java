@@ -1,15 +1,49 @@
 package br.com.daniel.repository;
 
+import br.com.daniel.data.dto.NameSuggestionDTO;
+import br.com.daniel.dedup.Document;
 import br.com.daniel.model.Person;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
-import org.springframework.data.repository.query.Param;
+import org.springframework.data.jpa.repository.QueryHints;
 
-public interface PersonRepository extends JpaRepository<Person, Long> {
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
 
-    @Modifying(clearAutomatically = true)
-    @Query("UPDATE Person p SET p.enabled = false WHERE p.id = :id")
-    void disabledPerson(@Param("id") Long id);
+public interface PersonRepository extends JpaRepository<Person, Long>, PersonRepositoryCustom {
+
+    // keyset pagination: range scan on the primary key, the cost doesn't depend on how deep the page is
+    List<Person> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    List<Person> findByIdLessThanOrderByIdDesc(Long id, Limit limit);
+
+    // a fetch size of Integer.MIN_VALUE makes Connector/J stream this forward-only, read-only result row by row
+    // instead of buffering it; no other statement can run on the connection until the stream is closed
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT e FROM Person e ORDER BY e.id")
+    Stream<Person> streamAll();
+
+    // what the autocomplete index is loaded with: enabled people, names only
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("SELECT new br.com.daniel.data.dto.NameSuggestionDTO(e.id, e.firstName, e.lastName) FROM Person e " +
+            "WHERE e.enabled = true")
+    Stream<NameSuggestionDTO> streamNames();
+
+    // what duplicate detection compares: enabled people, name and address as one text
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("SELECT new br.com.daniel.dedup.Document(e.id, CONCAT(e.firstName, ' ', e.lastName, ' ', e.address)) " +
+            "FROM Person e WHERE e.enabled = true")
+    Stream<Document> streamDocuments();
+
+    // MAX over the updated_at index: the validator of the collection, no rows read
+    @Query("SELECT MAX(e.updatedAt) FROM Person e")
+    Instant findLastUpdate();
 
 }
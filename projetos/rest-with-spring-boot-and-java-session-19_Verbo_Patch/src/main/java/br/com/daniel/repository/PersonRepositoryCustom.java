@@ -0,0 +1,34 @@
+package br.com.daniel.repository;
+
+import br.com.daniel.model.Person;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+// single-statement writes: no read before, the affected row count tells whether the row was there
+public interface PersonRepositoryCustom {
+
+    // PATCH: the properties a patch may touch and their columns; the NOT NULL ones can't be removed
+    Map<String, String> PATCHABLE_COLUMNS = Map.of(
+            "firstName", "first_name",
+            "lastName", "last_name",
+            "address", "address",
+            "gender", "gender",
+            "enabled", "enabled");
+
+    Set<String> REQUIRED = PATCHABLE_COLUMNS.keySet();
+
+    int update(Person person, List<Long> versions);
+
+    int patch(Long id, Map<String, Object> changes, Long version);
+
+    int disable(Long id, List<Long> versions);
+
+    int deleteRow(Long id);
+
+    // the row as the current transaction sees it, past the persistence context and the second-level cache: what a
+    // write answers with is never left where other transactions would read it, even if the write rolls back
+    Optional<Person> findRow(Long id);
+}
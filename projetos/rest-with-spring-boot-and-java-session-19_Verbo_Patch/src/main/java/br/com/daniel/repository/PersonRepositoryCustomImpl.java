@@ -0,0 +1,75 @@
+package br.com.daniel.repository;
+
+import br.com.daniel.model.Person;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+// plain JDBC on purpose: a bulk HQL/native statement makes Hibernate drop the whole "person" second-level region,
+// these leave it alone and the service evicts just the row it wrote. updated_at is set by the column's
+// ON UPDATE, version is bumped here
+public class PersonRepositoryCustomImpl implements PersonRepositoryCustom {
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbc;
+
+    @Override
+    public int update(Person person, List<Long> versions) {
+        if (VersionCondition.unsatisfiable(versions)) return 0;
+        var params = new MapSqlParameterSource()
+                .addValue("id", person.getId())
+                .addValue("firstName", person.getFirstName())
+                .addValue("lastName", person.getLastName())
+                .addValue("address", person.getAddress())
+                .addValue("gender", person.getGender());
+        return jdbc.update("UPDATE person SET first_name = :firstName, last_name = :lastName, address = :address, " +
+                "gender = :gender, version = version + 1 WHERE id = :id" + VersionCondition.where(versions, params), params);
+    }
+
+    // already disabled rows don't match: disabling twice writes nothing
+    @Override
+    public int disable(Long id, List<Long> versions) {
+        if (VersionCondition.unsatisfiable(versions)) return 0;
+        var params = new MapSqlParameterSource("id", id);
+        return jdbc.update("UPDATE person SET enabled = false, version = version + 1 WHERE id = :id AND enabled = true" +
+                VersionCondition.where(versions, params), params);
+    }
+
+    // only the columns the patch changed, guarded by the version the patch was applied to
+    @Override
+    public int patch(Long id, Map<String, Object> changes, Long version) {
+        var params = new MapSqlParameterSource();
+        return jdbc.update(VersionCondition.patch("person", PATCHABLE_COLUMNS, changes, id, version, params), params);
+    }
+
+    @Override
+    public int deleteRow(Long id) {
+        return jdbc.update("DELETE FROM person WHERE id = :id", new MapSqlParameterSource("id", id));
+    }
+
+    @Override
+    public Optional<Person> findRow(Long id) {
+        return jdbc.query("SELECT id, first_name, last_name, address, gender, enabled, version, updated_at " +
+                "FROM person WHERE id = :id", new MapSqlParameterSource("id", id), PersonRepositoryCustomImpl::person)
+                .stream().findFirst();
+    }
+
+    private static Person person(ResultSet rs, int row) throws SQLException {
+        var person = new Person();
+        person.setId(rs.getLong("id"));
+        person.setFirstName(rs.getString("first_name"));
+        person.setLastName(rs.getString("last_name"));
+        person.setAddress(rs.getString("address"));
+        person.setGender(rs.getString("gender"));
+        person.setEnabled(rs.getBoolean("enabled"));
+        person.setVersion(rs.getLong("version"));
+        person.setUpdatedAt(rs.getTimestamp("updated_at").toInstant());
+        return person;
+    }
+}
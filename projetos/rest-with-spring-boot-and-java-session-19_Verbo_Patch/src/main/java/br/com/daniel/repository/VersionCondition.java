@@ -0,0 +1,36 @@
+package br.com.daniel.repository;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+// the If-Match of a conditional write as a WHERE clause (null accepts any version, an empty list none) and the
+// column-by-column UPDATE of a patch
+final class VersionCondition {
+
+    private VersionCondition() {}
+
+    static boolean unsatisfiable(List<Long> versions) {
+        return versions != null && versions.isEmpty();
+    }
+
+    // "UPDATE table SET <changed columns>, version = version + 1 WHERE id = :id AND version = :version"
+    static String patch(String table, Map<String, String> columns, Map<String, Object> changes,
+                        Long id, Long version, MapSqlParameterSource params) {
+        var set = new StringJoiner(", ", "UPDATE " + table + " SET ", ", version = version + 1 WHERE id = :id AND version = :version");
+        changes.forEach((property, value) -> {
+            set.add(columns.get(property) + " = :" + property);
+            params.addValue(property, value);
+        });
+        params.addValue("id", id).addValue("version", version);
+        return set.toString();
+    }
+
+    static String where(List<Long> versions, MapSqlParameterSource params) {
+        if (versions == null) return "";
+        params.addValue("versions", versions);
+        return " AND version IN (:versions)";
+    }
+}
@@ -0,0 +1,186 @@
+package br.com.daniel.serialization.patch;
+
+import br.com.daniel.exception.InvalidPatchException;
+import br.com.daniel.exception.PreconditionFailedException;
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+// RFC 7396 merge patch and RFC 6902 JSON Patch over the patchable properties of a DTO. The result is the set of
+// properties whose value actually changed, typed as in the DTO, so the write touches only those columns
+@Component
+public class JsonPatches {
+
+    public static final String MERGE_PATCH_JSON_VALUE = "application/merge-patch+json";
+    public static final String JSON_PATCH_JSON_VALUE = "application/json-patch+json";
+
+    public static final MediaType MERGE_PATCH_JSON = MediaType.parseMediaType(MERGE_PATCH_JSON_VALUE);
+
+    private static final String ID = "id";
+
+    private static final Comparator<JsonNode> NUMERIC_VALUE = (a, b) -> a.isNumber() && b.isNumber()
+            ? a.decimalValue().compareTo(b.decimalValue())
+            : a.equals(b) ? 0 : 1;
+
+    private final ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+
+    @SuppressWarnings("unchecked")
+    public <T> Map<String, Object> changes(T current, JsonNode patch, String contentType,
+                                           Set<String> patchable, Set<String> required) {
+        JsonNode full = mapper.valueToTree(current);
+        ObjectNode before = mapper.createObjectNode();
+        before.set(ID, full.get(ID));
+        patchable.forEach(property -> before.set(property, full.get(property)));
+
+        JsonNode after = MediaType.parseMediaType(contentType).isCompatibleWith(MERGE_PATCH_JSON)
+                ? merge(before.deepCopy(), patch)
+                : apply(before.deepCopy(), patch);
+        if (!after.isObject()) throw new InvalidPatchException("The patched document must be an object!");
+        after.fieldNames().forEachRemaining(property -> {
+            if (!ID.equals(property) && !patchable.contains(property)) {
+                throw new InvalidPatchException("Not a patchable property: " + property);
+            }
+        });
+        if (!equal(before.get(ID), after.get(ID))) throw new InvalidPatchException("The id can't be patched!");
+
+        // compared after a round trip through the DTO, so "2017-11-29" and its epoch millis are the same value
+        T patched;
+        try {
+            patched = (T) mapper.treeToValue(after, current.getClass());
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            throw new InvalidPatchException("The patched document is not valid: " + e.getMessage());
+        }
+        JsonNode normalized = mapper.valueToTree(patched);
+        var values = new BeanWrapperImpl(patched);
+        Map<String, Object> changes = new LinkedHashMap<>();
+        for (String property : patchable) {
+            if (Objects.equals(full.get(property), normalized.get(property))) continue;
+            Object value = values.getPropertyValue(property);
+            if (value == null && required.contains(property)) {
+                throw new InvalidPatchException("The property can't be removed: " + property);
+            }
+            changes.put(property, value);
+        }
+        return changes;
+    }
+
+    // RFC 7396: objects merge recursively, null removes, anything else replaces
+    static JsonNode merge(JsonNode target, JsonNode patch) {
+        if (!patch.isObject()) return patch;
+        ObjectNode result = target != null && target.isObject()
+                ? (ObjectNode) target
+                : ((ObjectNode) patch).objectNode();
+        for (Iterator<Map.Entry<String, JsonNode>> fields = patch.fields(); fields.hasNext(); ) {
+            var field = fields.next();
+            if (field.getValue().isNull()) result.remove(field.getKey());
+            else result.set(field.getKey(), merge(result.get(field.getKey()), field.getValue()));
+        }
+        return result;
+    }
+
+    // RFC 6902: the operations apply in order and the patch is all or nothing (the caller works on a copy)
+    static JsonNode apply(JsonNode document, JsonNode operations) {
+        if (!operations.isArray()) throw new InvalidPatchException("A JSON Patch must be an array of operations!");
+        for (JsonNode operation : operations) {
+            String op = operation.path("op").asText();
+            JsonPointer path = pointer(operation, "path");
+            switch (op) {
+                case "add" -> document = add(document, path, value(operation));
+                case "remove" -> document = remove(document, path);
+                case "replace" -> document = add(remove(document, path), path, value(operation));
+                case "move" -> {
+                    JsonPointer from = pointer(operation, "from");
+                    JsonNode moved = get(document, from);
+                    document = add(remove(document, from), path, moved);
+                }
+                case "copy" -> document = add(document, path, get(document, pointer(operation, "from")).deepCopy());
+                case "test" -> {
+                    if (!equal(get(document, path), value(operation))) {
+                        throw new PreconditionFailedException("JSON Patch test failed at " + path);
+                    }
+                }
+                default -> throw new InvalidPatchException("Unknown JSON Patch operation: " + op);
+            }
+        }
+        return document;
+    }
+
+    private static JsonNode add(JsonNode document, JsonPointer path, JsonNode value) {
+        if (path.matches()) return value;
+        JsonNode parent = document.at(path.head());
+        String last = path.last().getMatchingProperty();
+        if (parent instanceof ObjectNode object) {
+            object.set(last, value);
+        } else if (parent instanceof ArrayNode array) {
+            if ("-".equals(last)) array.add(value);
+            else array.insert(index(array, last, array.size()), value);
+        } else {
+            throw new InvalidPatchException("No such path: " + path);
+        }
+        return document;
+    }
+
+    private static JsonNode remove(JsonNode document, JsonPointer path) {
+        if (path.matches()) throw new InvalidPatchException("The whole document can't be removed!");
+        JsonNode parent = document.at(path.head());
+        String last = path.last().getMatchingProperty();
+        if (parent instanceof ObjectNode object && object.has(last)) {
+            object.remove(last);
+        } else if (parent instanceof ArrayNode array) {
+            array.remove(index(array, last, array.size() - 1));
+        } else {
+            throw new InvalidPatchException("No such path: " + path);
+        }
+        return document;
+    }
+
+    // numbers compare by value (1 and 1.0 are the same), everything else structurally
+    private static boolean equal(JsonNode a, JsonNode b) {
+        if (a == null || b == null) return a == b;
+        return a.equals(NUMERIC_VALUE, b);
+    }
+
+    private static JsonNode get(JsonNode document, JsonPointer path) {
+        JsonNode node = document.at(path);
+        if (node.isMissingNode()) throw new InvalidPatchException("No such path: " + path);
+        return node;
+    }
+
+    private static int index(ArrayNode array, String segment, int max) {
+        try {
+            int index = Integer.parseInt(segment);
+            if (index >= 0 && index <= max) return index;
+        } catch (NumberFormatException ignored) {
+        }
+        throw new InvalidPatchException("Invalid array index: " + segment);
+    }
+
+    private static JsonPointer pointer(JsonNode operation, String member) {
+        JsonNode pointer = operation.get(member);
+        if (pointer == null || !pointer.isTextual()) throw new InvalidPatchException("Missing \"" + member + "\"!");
+        try {
+            return JsonPointer.compile(pointer.asText());
+        } catch (IllegalArgumentException e) {
+            throw new InvalidPatchException("Invalid JSON Pointer: " + pointer.asText());
+        }
+    }
+
+    private static JsonNode value(JsonNode operation) {
+        if (!operation.has("value")) throw new InvalidPatchException("Missing \"value\"!");
+        return operation.get("value");
+    }
+}
@@ -0,0 +1,10 @@
+package br.com.daniel.serialization.streaming;
+
+import java.io.Closeable;
+
+public interface StreamingWriter extends Closeable {
+
+    // writes one element straight to the output, wrapping IOExceptions so it can be used as a Consumer
+    void write(Object element);
+
+}
@@ -0,0 +1,161 @@
+package br.com.daniel.serialization.streaming;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.csv.CsvGenerator;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import com.fasterxml.jackson.dataformat.xml.ser.ToXmlGenerator;
+import org.springframework.hateoas.mediatype.MessageResolver;
+import org.springframework.hateoas.mediatype.hal.CurieProvider;
+import org.springframework.hateoas.mediatype.hal.Jackson2HalModule;
+import org.springframework.hateoas.server.core.EvoInflectorLinkRelationProvider;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Component;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+@Component
+public class StreamingWriterFactory {
+
+    public static final String TEXT_CSV_VALUE = "text/csv";
+
+    public static final List<MediaType> SUPPORTED_MEDIA_TYPES = List.of(
+            MediaType.APPLICATION_JSON,
+            MediaType.APPLICATION_NDJSON,
+            MediaType.APPLICATION_XML,
+            MediaType.APPLICATION_YAML);
+
+    // same mappers Spring MVC uses for the json, xml and yaml converters (json with the HAL module)
+    private final ObjectMapper jsonMapper;
+    private final XmlMapper xmlMapper;
+    private final ObjectMapper yamlMapper;
+    private final CsvMapper csvMapper;
+
+    public StreamingWriterFactory() {
+        this.jsonMapper = Jackson2ObjectMapperBuilder.json().modules(new Jackson2HalModule()).build();
+        this.jsonMapper.setHandlerInstantiator(new Jackson2HalModule.HalHandlerInstantiator(
+                new EvoInflectorLinkRelationProvider(), CurieProvider.NONE, MessageResolver.DEFAULTS_ONLY));
+        this.xmlMapper = Jackson2ObjectMapperBuilder.xml().build();
+        this.yamlMapper = Jackson2ObjectMapperBuilder.yaml().build();
+        // ISO-8601 dates, cells quoted only when they need it, blank cells read as null
+        this.csvMapper = CsvMapper.builder()
+                .enable(CsvGenerator.Feature.STRICT_CHECK_FOR_QUOTING)
+                .enable(JsonGenerator.Feature.IGNORE_UNKNOWN)
+                .enable(CsvParser.Feature.EMPTY_STRING_AS_NULL)
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .build();
+    }
+
+    // a JSON array or a root-level sequence (NDJSON) of values, read one at a time
+    public <T> MappingIterator<T> readValues(Class<T> type, InputStream in) throws IOException {
+        return jsonMapper.readerFor(type).readValues(in);
+    }
+
+    // header row first, then the given columns of each element in that order; other properties (links) are skipped
+    public StreamingWriter openCsv(List<String> columns, OutputStream out) throws IOException {
+        var schema = CsvSchema.builder().addColumns(columns, CsvSchema.ColumnType.STRING).build().withHeader();
+        return sequence(csvMapper.writer(schema).writeValues(out), out, null);
+    }
+
+    // columns are matched by the header row, so their order and extra columns don't matter; rows are parsed one at a time
+    public <T> MappingIterator<T> readCsv(Class<T> type, InputStream in) throws IOException {
+        return csvMapper.readerFor(type).with(CsvSchema.emptySchema().withHeader()).readValues(in);
+    }
+
+    public MediaType negotiate(List<MediaType> accepted) {
+        List<MediaType> sorted = new ArrayList<>(accepted);
+        sorted.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+        for (MediaType candidate : sorted) {
+            for (MediaType supported : SUPPORTED_MEDIA_TYPES) {
+                if (candidate.includes(supported)) return supported;
+            }
+        }
+        return MediaType.APPLICATION_JSON;
+    }
+
+    public StreamingWriter open(MediaType mediaType, OutputStream out) throws IOException {
+        if (MediaType.APPLICATION_NDJSON.isCompatibleWith(mediaType)) {
+            return sequence(jsonMapper.writer().withRootValueSeparator("\n").writeValues(out), out, "\n");
+        }
+        if (MediaType.APPLICATION_XML.isCompatibleWith(mediaType)) {
+            return xml(out);
+        }
+        if (MediaType.APPLICATION_YAML.isCompatibleWith(mediaType)) {
+            return sequence(yamlMapper.writer().writeValuesAsArray(out), out, null);
+        }
+        return sequence(jsonMapper.writer().writeValuesAsArray(out), out, null);
+    }
+
+    private StreamingWriter sequence(SequenceWriter sequence, OutputStream out, String trailer) {
+        return new StreamingWriter() {
+            @Override
+            public void write(Object element) {
+                try {
+                    sequence.write(element);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            // the sequence closes the target too, so the trailer goes out before it
+            @Override
+            public void close() throws IOException {
+                sequence.flush();
+                if (trailer != null) out.write(trailer.getBytes(StandardCharsets.UTF_8));
+                sequence.close();
+            }
+        };
+    }
+
+    // <List><item>...</item></List>, the same shape MVC renders for a List body
+    private StreamingWriter xml(OutputStream out) throws IOException {
+        try {
+            XMLStreamWriter xml = xmlMapper.getFactory().getXMLOutputFactory()
+                    .createXMLStreamWriter(out, StandardCharsets.UTF_8.name());
+            ToXmlGenerator generator = xmlMapper.getFactory().createGenerator(xml);
+            xml.writeStartElement("List");
+            return new StreamingWriter() {
+                @Override
+                public void write(Object element) {
+                    try {
+                        xmlMapper.writer().withRootName("item").writeValue(generator, element);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+
+                @Override
+                public void close() throws IOException {
+                    try {
+                        generator.flush();
+                        xml.writeEndElement();
+                        xml.flush();
+                        out.flush();
+                    } catch (XMLStreamException e) {
+                        throw new IOException(e);
+                    }
+                }
+            };
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package br.com.daniel.services;
+
+import br.com.daniel.data.ResourceStamp;
+import br.com.daniel.data.dto.BatchOperationDTO;
+import br.com.daniel.data.dto.BatchRequestDTO;
+import br.com.daniel.data.dto.BatchResultDTO;
+import br.com.daniel.data.dto.BookDTO;
+import br.com.daniel.data.dto.PersonDTO;
+import br.com.daniel.datasource.ReplicaRoutingDataSource;
+import br.com.daniel.exception.LimitExceededException;
+import br.com.daniel.exception.RequiredObjectIsNullException;
+import br.com.daniel.hateoas.NegotiatedRepresentation;
+import br.com.daniel.serialization.patch.JsonPatches;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// /api/batch/v1: each operation is dispatched straight to the person/book services, in order, without another trip
+// through the servlet stack. With atomic they share one transaction and the first failure rolls all of them back;
+// otherwise each runs in its own, and a run of consecutive GETs is read in parallel (batch.parallelReads at a time)
+@Service
+public class BatchServices {
+
+    static final Pattern PATH = Pattern.compile("/api/(person|book)/v1(?:/(\\d+))?/?");
+
+    private final Logger logger = LoggerFactory.getLogger(BatchServices.class.getName());
+
+    private final ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+
+    @Autowired
+    private PersonServices personServices;
+
+    @Autowired
+    private BookServices bookServices;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${batch.maxOperations:100}")
+    private int maxOperations;
+
+    @Value("${batch.parallelReads:4}")
+    private int parallelReads;
+
+    public List<BatchResultDTO> execute(BatchRequestDTO batch) {
+        if (batch == null || batch.getOperations() == null || batch.getOperations().isEmpty()) {
+            throw new RequiredObjectIsNullException("A batch needs at least one operation!");
+        }
+        var operations = batch.getOperations();
+        if (operations.size() > maxOperations) {
+            throw new LimitExceededException("At most " + maxOperations + " operations per batch!");
+        }
+        logger.info("Running a batch of {} operations{}", operations.size(), batch.isAtomic() ? " atomically" : "");
+        return batch.isAtomic() ? atomic(operations) : independent(operations);
+    }
+
+    // reads run one after the other here: the transaction (and its persistence context) belongs to this thread
+    private List<BatchResultDTO> atomic(List<BatchOperationDTO> operations) {
+        List<BatchResultDTO> results = new ArrayList<>(operations.size());
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                for (int i = 0; i < operations.size(); i++) {
+                    var result = run(i, operations.get(i));
+                    results.add(result);
+                    if (failed(result)) {
+                        status.setRollbackOnly();
+                        return;
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            // the transaction couldn't begin or commit (a conflict found at flush time, say): none was applied
+            logger.error("Batch transaction failed", e);
+            int status = statusOf(e);
+            List<BatchResultDTO> failed = new ArrayList<>(operations.size());
+            for (int i = 0; i < operations.size(); i++) {
+                failed.add(BatchResultDTO.failed(i, operations.get(i).getId(), status, e.getMessage()));
+            }
+            return failed;
+        }
+        var last = results.getLast();
+        if (!failed(last)) return results;
+
+        // the failure keeps its own status; the others get 424 Failed Dependency, whether they ran or not
+        for (int i = 0; i < operations.size(); i++) {
+            if (i == last.getIndex()) continue;
+            String message = (i < last.getIndex() ? "Rolled back" : "Not run") + ": operation " + last.getIndex() + " failed";
+            var dependent = BatchResultDTO.failed(i, operations.get(i).getId(), HttpStatus.FAILED_DEPENDENCY.value(), message);
+            if (i < results.size()) results.set(i, dependent);
+            else results.add(dependent);
+        }
+        return results;
+    }
+
+    private List<BatchResultDTO> independent(List<BatchOperationDTO> operations) {
+        var results = new BatchResultDTO[operations.size()];
+        int i = 0;
+        while (i < operations.size()) {
+            int end = i;
+            while (end < operations.size() && isRead(operations.get(end))) end++;
+            if (end - i > 1) {
+                read(operations, i, end, results);
+                i = end;
+            } else {
+                results[i] = run(i, operations.get(i));
+                i++;
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    // the batch request stays bound to every reader, so links and the lean profile follow it, and so does its
+    // read-your-writes routing: a GET after a write in the batch must not go to a replica that is behind
+    private void read(List<BatchOperationDTO> operations, int from, int to, BatchResultDTO[] results) {
+        var request = RequestContextHolder.getRequestAttributes();
+        boolean primaryOnly = ReplicaRoutingDataSource.isPrimaryOnly();
+        var permits = new Semaphore(parallelReads);
+        try (var readers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = from; i < to; i++) {
+                int index = i;
+                readers.submit(() -> {
+                    permits.acquireUninterruptibly();
+                    RequestContextHolder.setRequestAttributes(request);
+                    if (primaryOnly) ReplicaRoutingDataSource.usePrimary();
+                    try {
+                        results[index] = run(index, operations.get(index));
+                    } finally {
+                        ReplicaRoutingDataSource.clear();
+                        RequestContextHolder.resetRequestAttributes();
+                        permits.release();
+                    }
+                });
+            }
+        }
+    }
+
+    private BatchResultDTO run(int index, BatchOperationDTO operation) {
+        try {
+            var result = dispatch(operation);
+            result.setIndex(index);
+            result.setId(operation.getId());
+            return result;
+        } catch (Exception e) {
+            int status = statusOf(e);
+            if (status >= 500) logger.error("Batch operation {} failed", index, e);
+            return BatchResultDTO.failed(index, operation.getId(), status, e.getMessage());
+        }
+    }
+
+    private BatchResultDTO dispatch(BatchOperationDTO operation) throws JsonProcessingException {
+        String method = operation.getMethod() == null ? "" : operation.getMethod().toUpperCase(Locale.ROOT);
+        Matcher path = PATH.matcher(operation.getPath() == null ? "" : operation.getPath());
+        if (!path.matches()) {
+            return BatchResultDTO.failed(0, null, HttpStatus.NOT_FOUND.value(),
+                    "No batch operation for " + method + " " + operation.getPath());
+        }
+        boolean person = "person".equals(path.group(1));
+        Long id = path.group(2) == null ? null : Long.valueOf(path.group(2));
+        String ifMatch = header(operation, HttpHeaders.IF_MATCH);
+        JsonNode body = operation.getBody() == null || operation.getBody().isNull() ? null : operation.getBody();
+
+        switch (method) {
+            case "GET" -> {
+                if (id != null) return ok(HttpStatus.OK, person ? personServices.findById(id) : bookServices.findById(id));
+            }
+            case "POST" -> {
+                if (id == null) return ok(HttpStatus.CREATED, person
+                        ? personServices.create(body(body, PersonDTO.class))
+                        : bookServices.create(body(body, BookDTO.class)));
+            }
+            case "PUT" -> {
+                if (id == null) return ok(HttpStatus.OK, person
+                        ? personServices.update(body(body, PersonDTO.class), ifMatch, true).representation()
+                        : bookServices.update(body(body, BookDTO.class), ifMatch, true).representation());
+            }
+            case "PATCH" -> {
+                // a person PATCH without a body disables, as on PersonController
+                if (id != null && body == null && person) {
+                    return ok(HttpStatus.OK, personServices.disabledPerson(id, ifMatch, true).representation());
+                }
+                if (id != null && body != null) {
+                    String contentType = header(operation, HttpHeaders.CONTENT_TYPE);
+                    if (contentType == null) contentType = JsonPatches.MERGE_PATCH_JSON_VALUE;
+                    return ok(HttpStatus.OK, person
+                            ? personServices.patch(id, body, contentType, ifMatch, true).representation()
+                            : bookServices.patch(id, body, contentType, ifMatch, true).representation());
+                }
+            }
+            case "DELETE" -> {
+                if (id != null) {
+                    if (person) personServices.delete(id);
+                    else bookServices.deleteById(id);
+                    return new BatchResultDTO(0, null, HttpStatus.NO_CONTENT.value(), null, null, null);
+                }
+            }
+            default -> {
+            }
+        }
+        return BatchResultDTO.failed(0, null, HttpStatus.METHOD_NOT_ALLOWED.value(),
+                method + " is not supported on " + operation.getPath() + " in a batch");
+    }
+
+    private static boolean isRead(BatchOperationDTO operation) {
+        return "GET".equalsIgnoreCase(operation.getMethod());
+    }
+
+    private static boolean failed(BatchResultDTO result) {
+        return result.getStatus() >= 400;
+    }
+
+    private static String header(BatchOperationDTO operation, String name) {
+        if (operation.getHeaders() == null) return null;
+        for (var header : operation.getHeaders().entrySet()) {
+            if (header.getKey().equalsIgnoreCase(name)) return header.getValue();
+        }
+        return null;
+    }
+
+    private <T> T body(JsonNode body, Class<T> type) throws JsonProcessingException {
+        return body == null ? null : mapper.treeToValue(body, type);
+    }
+
+    private static BatchResultDTO ok(HttpStatus status, Object dto) {
+        var stamp = switch (dto) {
+            case PersonDTO person -> ResourceStamp.of(person.getVersion(), person.getUpdatedAt());
+            case BookDTO book -> ResourceStamp.of(book.getVersion(), book.getUpdatedAt());
+            default -> throw new IllegalArgumentException("No validators for " + dto.getClass().getName());
+        };
+        var eTag = stamp.forRepresentation(NegotiatedRepresentation.current()).eTag();
+        return new BatchResultDTO(0, null, status.value(), Map.of(HttpHeaders.ETAG, eTag), dto, null);
+    }
+
+    // the status the exception would have had as a request of its own (see CustomEntityResponseHandler)
+    static int statusOf(Exception e) {
+        if (e instanceof ObjectOptimisticLockingFailureException) return HttpStatus.PRECONDITION_FAILED.value();
+        if (e instanceof CannotCreateTransactionException || e instanceof DataAccessResourceFailureException) {
+            return HttpStatus.SERVICE_UNAVAILABLE.value();
+        }
+        if (e instanceof JsonProcessingException) return HttpStatus.BAD_REQUEST.value();
+        var status = AnnotatedElementUtils.findMergedAnnotation(e.getClass(), ResponseStatus.class);
+        return status != null ? status.code().value() : HttpStatus.INTERNAL_SERVER_ERROR.value();
+    }
+}
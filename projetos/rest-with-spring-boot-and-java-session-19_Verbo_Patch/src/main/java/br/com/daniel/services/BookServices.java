@@ -1,82 +1,341 @@
 package br.com.daniel.services;
 
+import br.com.daniel.cache.AfterCommit;
+import br.com.daniel.cache.CachedCount;
+import br.com.daniel.cache.ResponseCache;
+import br.com.daniel.cache.SingleFlight;
 import br.com.daniel.controllers.BookController;
+import br.com.daniel.data.MultiGet;
+import br.com.daniel.data.ResourceStamp;
+import br.com.daniel.data.Written;
 import br.com.daniel.data.dto.BookDTO;
+import br.com.daniel.data.dto.ImportResultDTO;
+import br.com.daniel.exception.PreconditionFailedException;
 import br.com.daniel.exception.RequiredObjectIsNullException;
 import br.com.daniel.exception.ResourceNotFoundException;
+import br.com.daniel.hateoas.LeanRepresentation;
+import br.com.daniel.hateoas.LinkTemplate;
 import br.com.daniel.model.Book;
 import br.com.daniel.repository.BookRepository;
+import br.com.daniel.repository.BookRepositoryCustom;
+import br.com.daniel.serialization.patch.JsonPatches;
+import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 import static br.com.daniel.mapper.ObjectMapper.parseListObjects;
 import static br.com.daniel.mapper.ObjectMapper.parseObject;
-import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
-import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 
 @Service
+@Transactional(readOnly = true)
 public class BookServices {
 
+    private static final LinkTemplate links = LinkTemplate.of(BookController.class);
+
+    public static final List<String> CSV_COLUMNS = List.of("id", "author", "launchDate", "price", "title");
+
     private final Logger logger = LoggerFactory.getLogger(BookServices.class.getName());
 
     @Autowired
     private BookRepository repository;
 
-    public List<BookDTO> findAll() {
-        logger.info("Finding all books!");
-        var dtos = parseListObjects(repository.findAll(), BookDTO.class);
-        dtos.forEach(BookServices::addHateosLinks);
-        return dtos;
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private ResponseCache responseCache;
+
+    @Autowired
+    private AfterCommit afterCommit;
+
+    @Autowired
+    private JsonPatches patches;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${bulk.batchSize:1000}")
+    private int bulkBatchSize;
+
+    private final CachedCount totalCount = new CachedCount(Duration.ofSeconds(30));
+
+    // a book asked for by many requests at once is read and mapped once; each request gets its own copy to link
+    private SingleFlight<Long, BookDTO> loads;
+
+    // metered on the context's registry: a global one would keep the first context's instance for every later one
+    @PostConstruct
+    void init() {
+        loads = new SingleFlight<>("book", Duration.ofSeconds(2), meterRegistry);
+    }
+
+    public CollectionModel<BookDTO> findAll(Long after, Long before, Integer limit,
+                                            Predicate<ResourceStamp> notModified) {
+        logger.info("Finding books! after: {} before: {}", after, before);
+        if (notModified.test(collectionStamp())) return null;
+        int size = KeysetPages.limit(limit);
+        List<Book> books = before != null
+                ? KeysetPages.ascending(repository.findByIdLessThanOrderByIdDesc(before, Limit.of(size)))
+                : repository.findByIdGreaterThanOrderByIdAsc(after != null ? after : 0L, Limit.of(size));
+        var dtos = parseListObjects(books, BookDTO.class);
+        if (LeanRepresentation.requested()) return CollectionModel.of(dtos);
+        dtos.forEach(BookServices::addItemLinks);
+
+        var page = CollectionModel.of(dtos, KeysetPages.pageLinks(dtos, BookDTO::getId, after, before, size, links));
+        page.add(links.collection("create", "POST"));
+        page.add(links.collection("update", "PUT"));
+        return page;
+    }
+
+    // ranked by relevance, so pages go by offset (?page=) rather than the id keyset findAll uses
+    public CollectionModel<BookDTO> search(String query, Integer page, Integer limit) {
+        if (query == null || query.isBlank()) {
+            throw new RequiredObjectIsNullException("The search query (q) must not be blank!");
+        }
+        logger.info("Searching books!");
+        String terms = query.strip();
+        int size = KeysetPages.limit(limit);
+        int number = page == null ? 0 : Math.max(0, page);
+        var dtos = new ArrayList<BookDTO>(size);
+        for (var hit : repository.search(terms, (long) number * size, size)) {
+            var dto = parseObject(hit.book(), BookDTO.class);
+            dto.setScore(hit.score());
+            dtos.add(dto);
+        }
+        if (LeanRepresentation.requested()) return CollectionModel.of(dtos);
+        dtos.forEach(BookServices::addItemLinks);
+
+        var result = CollectionModel.of(dtos, searchLink(terms, number, size).withSelfRel());
+        if (number > 0) result.add(searchLink(terms, number - 1, size).withRel(IanaLinkRelations.PREV));
+        if (dtos.size() == size) result.add(searchLink(terms, number + 1, size).withRel(IanaLinkRelations.NEXT));
+        return result;
+    }
+
+    public MultiGet<BookDTO> findAllById(List<Long> ids) {
+        var wanted = MultiGets.ids(ids);
+        logger.info("Finding {} books by ID!", wanted.size());
+        List<Book> books = repository.findAllById(wanted);
+        var dtos = parseListObjects(MultiGets.inOrder(wanted, books, Book::getId), BookDTO.class);
+        var missing = MultiGets.missing(wanted, books, Book::getId);
+        if (LeanRepresentation.requested()) return new MultiGet<>(CollectionModel.of(dtos), missing);
+        dtos.forEach(BookServices::addItemLinks);
+        return new MultiGet<>(CollectionModel.of(dtos, MultiGets.selfLink(links, wanted)), missing);
+    }
+
+    public void streamAll(Consumer<BookDTO> action) {
+        logger.info("Streaming all books!");
+        stream(action, !LeanRepresentation.requested());
+    }
+
+    // as the person export: plain DTOs, and CSV has no column for links anyway
+    public long export(Consumer<BookDTO> action) {
+        long start = System.nanoTime();
+        long rows = stream(action, false);
+        long millis = Math.max(1, Duration.ofNanos(System.nanoTime() - start).toMillis());
+        logger.info("Exported {} books in {} ms ({} rows/s)", rows, millis, rows * 1000 / millis);
+        return rows;
+    }
+
+    private long stream(Consumer<BookDTO> action, boolean links) {
+        long[] rows = {0};
+        try (Stream<Book> books = repository.streamAll()) {
+            books.forEach(entity -> {
+                var dto = parseObject(entity, BookDTO.class);
+                if (links) addItemLinks(dto);
+                action.accept(dto);
+                entityManager.detach(entity);
+                rows[0]++;
+            });
+        }
+        return rows[0];
+    }
+
+    // rows are pulled from the parser a chunk at a time and the next chunk is only read once this one is committed:
+    // the upload can't outrun the database and memory holds one chunk. A bad row stops the import; the chunks
+    // committed before it stay and are counted in the result
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ImportResultDTO importCsv(Iterator<BookDTO> rows) {
+        logger.info("Importing books! batch size: {}", bulkBatchSize);
+        long start = System.nanoTime();
+        long imported = 0;
+        String message = null;
+        List<Book> chunk = new ArrayList<>(bulkBatchSize);
+        try {
+            while (rows.hasNext()) {
+                chunk.add(parseObject(rows.next(), Book.class));
+                if (chunk.size() == bulkBatchSize) imported += insert(chunk);
+            }
+            imported += insert(chunk);
+        } catch (RuntimeException e) {
+            message = "Import stopped after " + imported + " rows: " + e.getMessage();
+            logger.warn(message);
+        } finally {
+            afterCommit.evict(totalCount::invalidate);
+        }
+        var result = new ImportResultDTO(imported, Duration.ofNanos(System.nanoTime() - start).toMillis(), message);
+        logger.info("Imported {} books in {} ms ({} rows/s)", result.getRows(), result.getMillis(), result.getRowsPerSecond());
+        return result;
+    }
+
+    private int insert(List<Book> chunk) {
+        if (chunk.isEmpty()) return 0;
+        int size = chunk.size();
+        transactionTemplate.executeWithoutResult(status -> repository.insertAll(chunk));
+        chunk.clear();
+        return size;
+    }
+
+    public long count() {
+        return totalCount.get(repository::count);
+    }
+
+    private ResourceStamp collectionStamp() {
+        return ResourceStamp.ofCollection(count(), repository.findLastUpdate());
     }
 
     public BookDTO findById(Long id) {
+        return findById(id, stamp -> false);
+    }
+
+    public BookDTO findById(Long id, Predicate<ResourceStamp> notModified) {
         logger.info("Finding one Book! {}", id);
-        var entity = repository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("No records found for this ID!"));
-        var dto = parseObject(entity, BookDTO.class);
+        var loaded = loads.load(id, () -> parseObject(repository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("No records found for this ID!")), BookDTO.class));
+        if (notModified.test(ResourceStamp.of(loaded.getVersion(), loaded.getUpdatedAt()))) return null;
+        var dto = parseObject(loaded, BookDTO.class);
         addHateosLinks(dto);
         return dto;
     }
 
+    @Transactional
     public BookDTO create(BookDTO bookDTO) {
         if(bookDTO == null) throw new RequiredObjectIsNullException();
         logger.info("Creating one book!");
         var entity = parseObject(bookDTO, Book.class);
         var dto = parseObject(repository.save(entity), BookDTO.class);
+        afterCommit.evict(totalCount::invalidate);
+        evictResponse(dto.getId());
         addHateosLinks(dto);
         return dto;
     }
 
-    public BookDTO update(BookDTO bookDTO) {
+    @Transactional
+    public Written<BookDTO> update(BookDTO bookDTO, String ifMatch, boolean representation) {
         if(bookDTO == null) throw new RequiredObjectIsNullException();
-        var entity = repository.findById(bookDTO.getId())
-                .orElseThrow(() -> new ResourceNotFoundException("No book found for this ID! " + bookDTO.getId()));
-        entity.setAuthor(bookDTO.getAuthor());
-        entity.setLaunchDate(bookDTO.getLaunchDate());
-        entity.setPrice(bookDTO.getPrice());
-        entity.setTitle(bookDTO.getTitle());
-        var dto = parseObject(repository.save(entity), BookDTO.class);
-        addHateosLinks(dto);
-        return dto;
+        if (repository.update(parseObject(bookDTO, Book.class), ResourceStamp.versions(ifMatch)) == 0) {
+            throw notWritten(bookDTO.getId(), ifMatch != null && !ifMatch.isBlank());
+        }
+        evict(bookDTO.getId());
+        return written(bookDTO.getId(), representation);
+    }
+
+    @Transactional
+    public Written<BookDTO> patch(Long id, JsonNode patch, String contentType, String ifMatch, boolean representation) {
+        logger.info("Patching one Book! {}", id);
+        Book entity = repository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("No book found for this ID! " + id));
+        if (!ResourceStamp.of(entity.getVersion(), entity.getUpdatedAt()).matches(ifMatch)) {
+            throw new PreconditionFailedException();
+        }
+        entityManager.detach(entity);
+        BookDTO dto = parseObject(entity, BookDTO.class);
+        var changes = patches.changes(dto, patch, contentType,
+                BookRepositoryCustom.PATCHABLE_COLUMNS.keySet(), BookRepositoryCustom.REQUIRED);
+        if (changes.isEmpty()) {
+            var stamp = ResourceStamp.of(entity.getVersion(), entity.getUpdatedAt());
+            if (!representation) return new Written<>(stamp, null);
+            addHateosLinks(dto);
+            return new Written<>(stamp, dto);
+        }
+        if (repository.patch(id, changes, entity.getVersion()) == 0) throw notWritten(id, true);
+        evict(id);
+        return written(id, representation);
     }
 
+    @Transactional
     public void deleteById(Long id) {
         logger.info("Delete one Book! {}", id);
-        Book entity = repository.findById(id)
+        if (repository.deleteRow(id) == 0) throw new ResourceNotFoundException("No book found for this ID! " + id);
+        afterCommit.evict(totalCount::invalidate);
+        evict(id);
+    }
+
+    // read by the writer itself, not through loads: a GET already in flight may have read the row before this
+    // write, and its callers must not be handed what this uncommitted transaction sees either
+    private Written<BookDTO> written(Long id, boolean representation) {
+        var entity = repository.findRow(id)
                 .orElseThrow(() -> new ResourceNotFoundException("No book found for this ID! " + id));
-        repository.delete(entity);
+        var stamp = ResourceStamp.of(entity.getVersion(), entity.getUpdatedAt());
+        if (!representation) return new Written<>(stamp, null);
+        var dto = parseObject(entity, BookDTO.class);
+        addHateosLinks(dto);
+        return new Written<>(stamp, dto);
+    }
+
+    private RuntimeException notWritten(Long id, boolean conditional) {
+        if (id != null && conditional && repository.existsById(id)) {
+            return new PreconditionFailedException();
+        }
+        return new ResourceNotFoundException("No book found for this ID! " + id);
+    }
+
+    private void evict(Long id) {
+        afterCommit.evict(() -> entityManager.getEntityManagerFactory().getCache().evict(Book.class, id));
+        evictResponse(id);
+    }
+
+    private void evictResponse(Long id) {
+        afterCommit.evict(() -> loads.forget(id));
+        responseCache.evict(links.path() + "/" + id);
     }
 
     public static void addHateosLinks(BookDTO dto) {
-        dto.add(linkTo(methodOn(BookController.class).findById(dto.getId())).withSelfRel().withType("GET"));
-        dto.add(linkTo(methodOn(BookController.class).findAll()).withRel("findAll").withType("GET"));
-        dto.add(linkTo(methodOn(BookController.class).create(dto)).withRel("create").withType("POST"));
-        dto.add(linkTo(methodOn(BookController.class).update(dto)).withRel("update").withType("PUT"));
-        dto.add(linkTo(methodOn(BookController.class).deleteById(dto.getId())).withRel("delele").withType("DELETE"));
+        if (LeanRepresentation.requested()) return;
+        addItemLinks(dto);
+        dto.add(links.collection("findAll", "GET"));
+        dto.add(links.collection("create", "POST"));
+        dto.add(links.collection("update", "PUT"));
+    }
+
+    private static Link searchLink(String query, int page, int limit) {
+        String href = UriComponentsBuilder.fromUriString(links.collection() + "/search")
+                .queryParam("q", query)
+                .queryParam("page", page)
+                .queryParam("limit", limit)
+                .encode()
+                .toUriString();
+        return Link.of(href).withType("GET");
+    }
+
+    public static void addItemLinks(BookDTO dto) {
+        dto.add(links.item(dto.getId(), IanaLinkRelations.SELF_VALUE, "GET"));
+        dto.add(links.item(dto.getId(), "patch", "PATCH"));
+        dto.add(links.item(dto.getId(), "delete", "DELETE"));
     }
 
 
@@ -0,0 +1,179 @@
+package br.com.daniel.services;
+
+import br.com.daniel.data.dto.DuplicateClusterDTO;
+import br.com.daniel.data.dto.DuplicateReportDTO;
+import br.com.daniel.data.dto.PersonDTO;
+import br.com.daniel.dedup.Document;
+import br.com.daniel.dedup.MinHashDeduplicator;
+import br.com.daniel.exception.ResourceNotFoundException;
+import br.com.daniel.model.Person;
+import br.com.daniel.repository.PersonRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static br.com.daniel.mapper.ObjectMapper.parseObject;
+
+// duplicate detection reads every enabled person, so it runs in the background, one run at a time, on a fork/join
+// pool of its own (duplicates.parallelism, 0 for one thread per core) rather than on request threads. The report of
+// the last run stays until the next one finishes
+@Service
+public class DuplicateDetectionServices {
+
+    public static final String RUNNING = "RUNNING";
+    public static final String DONE = "DONE";
+    public static final String FAILED = "FAILED";
+
+    private final Logger logger = LoggerFactory.getLogger(DuplicateDetectionServices.class.getName());
+
+    @Autowired
+    private PersonRepository repository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${duplicates.hashes:32}")
+    private int hashes;
+
+    @Value("${duplicates.bands:8}")
+    private int bands;
+
+    @Value("${duplicates.threshold:0.7}")
+    private double threshold;
+
+    @Value("${duplicates.maxBucket:200}")
+    private int maxBucket;
+
+    @Value("${duplicates.maxClusters:1000}")
+    private int maxClusters;
+
+    @Value("${duplicates.parallelism:0}")
+    private int parallelism;
+
+    @Value("${duplicates.chunkSize:10000}")
+    private int chunkSize;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private final AtomicReference<DuplicateReportDTO> report = new AtomicReference<>();
+
+    private ExecutorService runner;
+
+    // the runner only reads and waits for the pool, so in virtual thread mode it is a virtual thread; the pool that
+    // does the hashing stays on platform threads
+    @PostConstruct
+    void init() {
+        runner = Executors.newSingleThreadExecutor(virtualThreads
+                ? Thread.ofVirtual().name("duplicate-detection").factory()
+                : task -> {
+                    var thread = new Thread(task, "duplicate-detection");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        runner.shutdownNow();
+    }
+
+    // starting while a run is going on returns that run
+    public DuplicateReportDTO start() {
+        var running = new DuplicateReportDTO();
+        running.setStatus(RUNNING);
+        running.setStartedAt(Instant.now());
+        var current = report.get();
+        if (current != null && RUNNING.equals(current.getStatus())) return current;
+        if (!report.compareAndSet(current, running)) return report.get();
+        logger.info("Starting duplicate detection!");
+        runner.submit(() -> run(running.getStartedAt()));
+        return running;
+    }
+
+    public DuplicateReportDTO latest() {
+        var current = report.get();
+        if (current == null) throw new ResourceNotFoundException("No duplicate detection has run yet!");
+        return current;
+    }
+
+    void run(Instant startedAt) {
+        var result = new DuplicateReportDTO();
+        result.setStartedAt(startedAt);
+        var pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        try {
+            var deduplicator = new MinHashDeduplicator(hashes, bands, threshold, maxBucket, pool);
+            var readOnly = new TransactionTemplate(transactionManager);
+            readOnly.setReadOnly(true);
+            // read on this thread, one chunk at a time; the pool signs each chunk while the cursor waits
+            readOnly.executeWithoutResult(status -> {
+                List<Document> chunk = new ArrayList<>(chunkSize);
+                try (var documents = repository.streamDocuments()) {
+                    documents.forEach(document -> {
+                        chunk.add(document);
+                        if (chunk.size() == chunkSize) {
+                            deduplicator.addAll(chunk);
+                            chunk.clear();
+                        }
+                    });
+                }
+                deduplicator.addAll(chunk);
+            });
+            var detected = deduplicator.detect();
+            var clusters = detected.clusters().stream().limit(maxClusters).toList();
+            result.setPeople(deduplicator.size());
+            result.setCandidatePairs(detected.candidatePairs());
+            result.setClusterCount(detected.clusters().size());
+            result.setClusters(readOnly.execute(status -> clusters(clusters)));
+            result.setStatus(DONE);
+            logger.info("Duplicate detection read {} people, scored {} pairs and found {} clusters",
+                    deduplicator.size(), detected.candidatePairs(), detected.clusters().size());
+        } catch (RuntimeException e) {
+            logger.error("Duplicate detection failed", e);
+            result.setStatus(FAILED);
+            result.setMessage(e.getMessage());
+        } finally {
+            pool.shutdown();
+        }
+        result.setFinishedAt(Instant.now());
+        report.set(result);
+    }
+
+    // the members of every reported cluster in one query
+    private List<DuplicateClusterDTO> clusters(List<MinHashDeduplicator.Cluster> clusters) {
+        var ids = clusters.stream().flatMap(cluster -> cluster.ids().stream()).toList();
+        Map<Long, Person> people = repository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Person::getId, Function.identity()));
+        List<DuplicateClusterDTO> result = new ArrayList<>(clusters.size());
+        for (var cluster : clusters) {
+            List<PersonDTO> members = new ArrayList<>(cluster.ids().size());
+            for (Long id : cluster.ids()) {
+                var person = people.get(id);
+                // deleted since it was read
+                if (person == null) continue;
+                var dto = parseObject(person, PersonDTO.class);
+                PersonServices.addItemLinks(dto);
+                members.add(dto);
+            }
+            if (members.size() > 1) result.add(new DuplicateClusterDTO(cluster.similarity(), members));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,292 @@
+package br.com.daniel.services;
+
+import br.com.daniel.controllers.ExportJobController;
+import br.com.daniel.data.dto.ExportJobDTO;
+import br.com.daniel.exception.ExportNotReadyException;
+import br.com.daniel.exception.ResourceNotFoundException;
+import br.com.daniel.export.ExportFormat;
+import br.com.daniel.export.ExportJob;
+import br.com.daniel.hateoas.LinkTemplate;
+import br.com.daniel.serialization.streaming.StreamingWriter;
+import br.com.daniel.serialization.streaming.StreamingWriterFactory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+// exports too big for a request run in the background instead: at most exportJobs.concurrency at a time, each on
+// one read-only connection (a replica, when there are any), so a burst of exports can't drain the pool interactive
+// requests use. The file is written to exportJobs.directory and kept until exportJobs.ttl passes or newer files
+// need the room under exportJobs.maxSize
+@Service
+public class ExportJobServices {
+
+    private static final LinkTemplate links = LinkTemplate.of(ExportJobController.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Logger logger = LoggerFactory.getLogger(ExportJobServices.class.getName());
+
+    @Autowired
+    private PersonServices personServices;
+
+    @Autowired
+    private BookServices bookServices;
+
+    @Autowired
+    private StreamingWriterFactory writers;
+
+    @Value("${exportJobs.directory:${java.io.tmpdir}/exports}")
+    private Path directory;
+
+    @Value("${exportJobs.concurrency:1}")
+    private int concurrency;
+
+    @Value("${exportJobs.ttl:24h}")
+    private Duration ttl;
+
+    @Value("${exportJobs.maxSize:1GB}")
+    private DataSize maxSize;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private final Map<String, ExportJob> jobs = new ConcurrentHashMap<>();
+
+    private ExecutorService executor;
+
+    private ScheduledExecutorService retention;
+
+    private final ReentrantLock purging = new ReentrantLock();
+
+    private final ReentrantLock starting = new ReentrantLock();
+
+    @PostConstruct
+    void init() throws IOException {
+        Files.createDirectories(directory);
+        // jobs only live in memory: files a previous run left behind can't be asked for any more
+        try (var files = Files.newDirectoryStream(directory, "{person,book}-*")) {
+            files.forEach(ExportJobServices::deleteQuietly);
+        }
+        // in virtual thread mode the jobs get virtual threads too, still at most exportJobs.concurrency of them
+        executor = Executors.newFixedThreadPool(concurrency, virtualThreads
+                ? Thread.ofVirtual().name("export-job-", 1).factory()
+                : daemon("export-job"));
+        retention = Executors.newSingleThreadScheduledExecutor(daemon("export-retention"));
+        retention.scheduleWithFixedDelay(this::purge, 1, 1, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        retention.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    // a job of the same dataset and format that is still queued or running answers the request instead of a new
+    // full-table scan: at most one pending job per dataset and format, so repeated requests can't pile them up
+    public ExportJobDTO start(String dataset, String format) {
+        var wanted = ExportJob.Dataset.of(dataset);
+        var as = ExportFormat.of(format);
+        starting.lock();
+        try {
+            var pending = jobs.values().stream()
+                    .filter(job -> job.getDataset() == wanted && job.getFormat() == as && !job.isFinished())
+                    .findFirst();
+            if (pending.isPresent()) {
+                logger.info("Export of {} as {} already pending: {}", wanted.getName(), as.getExtension(),
+                        pending.get().getId());
+                return toDTO(pending.get());
+            }
+            var job = new ExportJob(wanted, as, directory);
+            logger.info("Queueing export {} of {} as {}", job.getId(), wanted.getName(), as.getExtension());
+            jobs.put(job.getId(), job);
+            job.setTask(executor.submit(() -> run(job)));
+            return toDTO(job);
+        } finally {
+            starting.unlock();
+        }
+    }
+
+    public ExportJobDTO findById(String id) {
+        return toDTO(find(id));
+    }
+
+    // only a finished file can be downloaded; a queued, running or failed job answers 409
+    public ExportJob download(String id) {
+        var job = find(id);
+        if (job.getStatus() != ExportJob.Status.DONE) {
+            throw new ExportNotReadyException("Export job is " + job.getStatus() + ", there is no file to download yet!");
+        }
+        return job;
+    }
+
+    // cancels a job still running and deletes its file
+    public void delete(String id) {
+        logger.info("Deleting export {}", id);
+        remove(find(id));
+    }
+
+    private ExportJob find(String id) {
+        var job = jobs.get(id);
+        if (job == null) throw new ResourceNotFoundException("No export job found for this ID!");
+        return job;
+    }
+
+    // rows go to a ".part" file that only becomes the download once complete, so a half-written export is
+    // never served
+    void run(ExportJob job) {
+        Path part = job.getPartFile();
+        try {
+            job.started(count(job.getDataset()));
+            long start = System.nanoTime();
+            try (var out = new BufferedOutputStream(Files.newOutputStream(part), BUFFER_SIZE);
+                 var writer = open(job, out)) {
+                export(job, writer);
+            }
+            Files.move(part, job.getFile(), StandardCopyOption.ATOMIC_MOVE);
+            job.finished(Files.size(job.getFile()));
+            logger.info("Export {} wrote {} rows ({} bytes) in {} ms", job.getId(), job.getRows(), job.getSize(),
+                    Duration.ofNanos(System.nanoTime() - start).toMillis());
+        } catch (Exception e) {
+            deleteQuietly(part);
+            job.failed(e.getMessage());
+            logger.warn("Export {} failed after {} rows: {}", job.getId(), job.getRows(), e.getMessage());
+        }
+        // deleted while it was still writing
+        if (!jobs.containsKey(job.getId())) deleteQuietly(job.getFile());
+        purge();
+    }
+
+    private StreamingWriter open(ExportJob job, OutputStream out) throws IOException {
+        if (job.getFormat() != ExportFormat.CSV) return writers.open(job.getFormat().getMediaType(), out);
+        return writers.openCsv(switch (job.getDataset()) {
+            case PERSON -> PersonServices.CSV_COLUMNS;
+            case BOOK -> BookServices.CSV_COLUMNS;
+        }, out);
+    }
+
+    private long count(ExportJob.Dataset dataset) {
+        return switch (dataset) {
+            case PERSON -> personServices.count();
+            case BOOK -> bookServices.count();
+        };
+    }
+
+    private void export(ExportJob job, StreamingWriter writer) {
+        switch (job.getDataset()) {
+            case PERSON -> personServices.export(progress(job, writer));
+            case BOOK -> bookServices.export(progress(job, writer));
+        }
+    }
+
+    private static <T> Consumer<T> progress(ExportJob job, StreamingWriter writer) {
+        return dto -> {
+            if (Thread.currentThread().isInterrupted()) throw new CancellationException("Export job was cancelled");
+            writer.write(dto);
+            job.rowWritten();
+        };
+    }
+
+    // expired jobs go first; then, newest first, finished files are kept while they fit in maxSize. The newest one
+    // always stays until it expires, however large, and running jobs are never touched
+    void purge() {
+        purging.lock();
+        try {
+            Instant expired = Instant.now().minus(ttl);
+            List<ExportJob> finished = jobs.values().stream()
+                    .filter(ExportJob::isFinished)
+                    .sorted(Comparator.comparing(ExportJob::getFinishedAt).reversed())
+                    .toList();
+            long kept = 0;
+            for (ExportJob job : finished) {
+                if (job.getFinishedAt().isBefore(expired) || (kept > 0 && kept + job.getSize() > maxSize.toBytes())) {
+                    logger.info("Export {} expired", job.getId());
+                    remove(job);
+                } else {
+                    kept += job.getSize();
+                }
+            }
+        } finally {
+            purging.unlock();
+        }
+    }
+
+    private void remove(ExportJob job) {
+        jobs.remove(job.getId());
+        if (job.getTask() != null) job.getTask().cancel(true);
+        deleteQuietly(job.getPartFile());
+        deleteQuietly(job.getFile());
+    }
+
+    private ExportJobDTO toDTO(ExportJob job) {
+        var dto = new ExportJobDTO();
+        dto.setId(job.getId());
+        dto.setDataset(job.getDataset().getName());
+        dto.setFormat(job.getFormat().getExtension());
+        dto.setStatus(job.getStatus().name());
+        dto.setRows(job.getRows());
+        dto.setTotal(job.getTotal());
+        dto.setCreatedAt(job.getCreatedAt());
+        dto.setFinishedAt(job.getFinishedAt());
+        dto.setMessage(job.getMessage());
+        if (job.getStatus() == ExportJob.Status.DONE) {
+            dto.setSize(job.getSize());
+            dto.setExpiresAt(job.getFinishedAt().plus(ttl));
+        }
+        addHateosLinks(dto);
+        return dto;
+    }
+
+    public static void addHateosLinks(ExportJobDTO dto) {
+        dto.add(links.item(dto.getId(), IanaLinkRelations.SELF_VALUE, "GET"));
+        if (ExportJob.Status.DONE.name().equals(dto.getStatus())) {
+            dto.add(Link.of(links.item(dto.getId()) + "/file").withRel("download").withType("GET"));
+        }
+        dto.add(links.item(dto.getId(), "delete", "DELETE"));
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            LoggerFactory.getLogger(ExportJobServices.class.getName()).warn("Could not delete {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static ThreadFactory daemon(String name) {
+        var sequence = new AtomicInteger();
+        return task -> {
+            var thread = new Thread(task, name + "-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,64 @@
+package br.com.daniel.services;
+
+import br.com.daniel.hateoas.LinkTemplate;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.Links;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+final class KeysetPages {
+
+    static final int DEFAULT_LIMIT = 12;
+    static final int MAX_LIMIT = 100;
+
+    private KeysetPages() {
+    }
+
+    static int limit(Integer limit) {
+        if (limit == null) return DEFAULT_LIMIT;
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+
+    // a page fetched backwards (before=<id>) comes in descending order
+    static <T> List<T> ascending(List<T> page) {
+        var ordered = new ArrayList<>(page);
+        Collections.reverse(ordered);
+        return ordered;
+    }
+
+    static <T> Links pageLinks(List<T> page, Function<T, Long> id, Long after, Long before, int limit,
+                               LinkTemplate links) {
+        List<Link> result = new ArrayList<>();
+        result.add(pageLink(links, after, before, limit).withSelfRel());
+        result.add(pageLink(links, null, null, limit).withRel(IanaLinkRelations.FIRST));
+        if (page.isEmpty()) return Links.of(result);
+
+        Long firstId = id.apply(page.getFirst());
+        Long lastId = id.apply(page.getLast());
+        boolean full = page.size() == limit;
+        boolean backwards = before != null;
+
+        if (backwards ? full : (after != null && after > 0)) {
+            result.add(pageLink(links, null, firstId, limit).withRel(IanaLinkRelations.PREV));
+        }
+        if (backwards || full) {
+            result.add(pageLink(links, lastId, null, limit).withRel(IanaLinkRelations.NEXT));
+        }
+        return Links.of(result);
+    }
+
+    private static Link pageLink(LinkTemplate links, Long after, Long before, int limit) {
+        String href = UriComponentsBuilder.fromUriString(links.collection())
+                .queryParamIfPresent("after", Optional.ofNullable(after))
+                .queryParamIfPresent("before", Optional.ofNullable(before))
+                .queryParam("limit", limit)
+                .toUriString();
+        return Link.of(href).withType("GET");
+    }
+}
@@ -0,0 +1,47 @@
+package br.com.daniel.services;
+
+import br.com.daniel.exception.LimitExceededException;
+import br.com.daniel.exception.RequiredObjectIsNullException;
+import br.com.daniel.hateoas.LinkTemplate;
+import org.springframework.hateoas.Link;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// ?ids= lookups: up to MAX_IDS distinct ids in one IN query (padded by Hibernate to the next power of two, so the
+// statement cache holds a few shapes rather than one per count), answered in the order they were asked for
+final class MultiGets {
+
+    static final int MAX_IDS = 100;
+
+    private MultiGets() {
+    }
+
+    // repeated ids are answered once, where they first appear
+    static List<Long> ids(List<Long> ids) {
+        var distinct = ids == null ? List.<Long>of() : ids.stream().filter(Objects::nonNull).distinct().toList();
+        if (distinct.isEmpty()) throw new RequiredObjectIsNullException("At least one ID (ids) is required!");
+        if (distinct.size() > MAX_IDS) {
+            throw new LimitExceededException("At most " + MAX_IDS + " IDs (ids) per request!");
+        }
+        return distinct;
+    }
+
+    static <T> List<T> inOrder(List<Long> ids, List<T> found, Function<T, Long> id) {
+        Map<Long, T> byId = found.stream().collect(Collectors.toMap(id, Function.identity()));
+        return ids.stream().map(byId::get).filter(Objects::nonNull).toList();
+    }
+
+    static <T> List<Long> missing(List<Long> ids, List<T> found, Function<T, Long> id) {
+        var present = found.stream().map(id).collect(Collectors.toSet());
+        return ids.stream().filter(wanted -> !present.contains(wanted)).toList();
+    }
+
+    static Link selfLink(LinkTemplate links, List<Long> ids) {
+        String joined = ids.stream().map(String::valueOf).collect(Collectors.joining(","));
+        return Link.of(links.collection() + "?ids=" + joined).withSelfRel().withType("GET");
+    }
+}
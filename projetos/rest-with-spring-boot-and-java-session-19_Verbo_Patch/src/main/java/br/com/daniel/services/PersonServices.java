@@ -1,99 +1,428 @@
 package br.com.daniel.services;
 
+import br.com.daniel.autocomplete.PersonNameIndex;
+import br.com.daniel.cache.AfterCommit;
+import br.com.daniel.cache.CachedCount;
+import br.com.daniel.cache.ResponseCache;
 import br.com.daniel.controllers.PersonController;
+import br.com.daniel.data.MultiGet;
+import br.com.daniel.data.ResourceStamp;
+import br.com.daniel.data.Written;
+import br.com.daniel.data.dto.BulkResultDTO;
+import br.com.daniel.data.dto.NameSuggestionDTO;
 import br.com.daniel.data.dto.PersonDTO;
+import br.com.daniel.exception.PreconditionFailedException;
 import br.com.daniel.exception.RequiredObjectIsNullException;
 import br.com.daniel.exception.ResourceNotFoundException;
+import br.com.daniel.hateoas.LeanRepresentation;
+import br.com.daniel.hateoas.LinkTemplate;
 import br.com.daniel.model.Person;
 import br.com.daniel.repository.PersonRepository;
-import jakarta.transaction.Transactional;
+import br.com.daniel.repository.PersonRepositoryCustom;
+import br.com.daniel.serialization.patch.JsonPatches;
+import com.fasterxml.jackson.databind.JsonNode;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.IanaLinkRelations;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static br.com.daniel.mapper.ObjectMapper.parseListObjects;
 import static br.com.daniel.mapper.ObjectMapper.parseObject;
-import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
-import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 
+// reads run in read-only transactions: no dirty-check snapshots, no flush, and the connection is flagged
+// read-only; writes opt into a read-write one
 @Service
+@Transactional(readOnly = true)
 public class PersonServices {
 
+    static final int AUTOCOMPLETE_LIMIT = 10;
+    static final int MAX_AUTOCOMPLETE_LIMIT = 50;
+
+    public static final List<String> CSV_COLUMNS = List.of("id", "firstName", "lastName", "address", "gender", "enabled");
+
+    private static final LinkTemplate links = LinkTemplate.of(PersonController.class);
+
     private final Logger logger = LoggerFactory.getLogger(PersonServices.class.getName());
 
     @Autowired
     private PersonRepository repository;
 
-    public List<PersonDTO> findAll() {
-        logger.info("Finding all people!");
-        var dtos = parseListObjects(repository.findAll(), PersonDTO.class);
-        dtos.forEach(PersonServices::addHateosLinks);
-        return dtos;
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private ResponseCache responseCache;
+
+    @Autowired
+    private AfterCommit afterCommit;
+
+    @Autowired
+    private PersonNameIndex names;
+
+    @Autowired
+    private JsonPatches patches;
+
+    @Value("${bulk.batchSize:1000}")
+    private int bulkBatchSize;
+
+    private final CachedCount totalCount = new CachedCount(Duration.ofSeconds(30));
+
+    // null when notModified accepts the collection's validators: the page isn't queried
+    public CollectionModel<PersonDTO> findAll(Long after, Long before, Integer limit,
+                                              Predicate<ResourceStamp> notModified) {
+        logger.info("Finding people! after: {} before: {}", after, before);
+        if (notModified.test(collectionStamp())) return null;
+        int size = KeysetPages.limit(limit);
+        List<Person> people = before != null
+                ? KeysetPages.ascending(repository.findByIdLessThanOrderByIdDesc(before, Limit.of(size)))
+                : repository.findByIdGreaterThanOrderByIdAsc(after != null ? after : 0L, Limit.of(size));
+        var dtos = parseListObjects(people, PersonDTO.class);
+        if (LeanRepresentation.requested()) return CollectionModel.of(dtos);
+        dtos.forEach(PersonServices::addItemLinks);
+
+        // links shared by every row go once on the collection, not on each item
+        var page = CollectionModel.of(dtos, KeysetPages.pageLinks(dtos, PersonDTO::getId, after, before, size, links));
+        page.add(links.collection("create", "POST"));
+        page.add(links.collection("update", "PUT"));
+        return page;
+    }
+
+    public MultiGet<PersonDTO> findAllById(List<Long> ids) {
+        var wanted = MultiGets.ids(ids);
+        logger.info("Finding {} people by ID!", wanted.size());
+        List<Person> people = repository.findAllById(wanted);
+        var dtos = parseListObjects(MultiGets.inOrder(wanted, people, Person::getId), PersonDTO.class);
+        var missing = MultiGets.missing(wanted, people, Person::getId);
+        if (LeanRepresentation.requested()) return new MultiGet<>(CollectionModel.of(dtos), missing);
+        dtos.forEach(PersonServices::addItemLinks);
+        return new MultiGet<>(CollectionModel.of(dtos, MultiGets.selfLink(links, wanted)), missing);
+    }
+
+    public void streamAll(Consumer<PersonDTO> action) {
+        logger.info("Streaming all people!");
+        stream(action, !LeanRepresentation.requested());
+    }
+
+    // export files outlive the request they'd take their link base from: rows go out as plain DTOs
+    public long export(Consumer<PersonDTO> action) {
+        long start = System.nanoTime();
+        long rows = stream(action, false);
+        long millis = Math.max(1, Duration.ofNanos(System.nanoTime() - start).toMillis());
+        logger.info("Exported {} people in {} ms ({} rows/s)", rows, millis, rows * 1000 / millis);
+        return rows;
+    }
+
+    // one row in memory at a time: each entity is mapped, handed to the writer and detached
+    private long stream(Consumer<PersonDTO> action, boolean links) {
+        long[] rows = {0};
+        try (Stream<Person> people = repository.streamAll()) {
+            people.forEach(entity -> {
+                var dto = parseObject(entity, PersonDTO.class);
+                if (links) addItemLinks(dto);
+                action.accept(dto);
+                entityManager.detach(entity);
+                rows[0]++;
+            });
+        }
+        return rows[0];
+    }
+
+    // served from memory, no transaction or connection involved
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<NameSuggestionDTO> autocomplete(String prefix, Integer limit) {
+        int size = limit == null ? AUTOCOMPLETE_LIMIT : Math.max(1, Math.min(limit, MAX_AUTOCOMPLETE_LIMIT));
+        return names.suggest(prefix, size);
+    }
+
+    public long count() {
+        return totalCount.get(repository::count);
+    }
+
+    // no COUNT(*) per request: the cached count, which every write here invalidates, tells deletes apart, and the
+    // MAX(updated_at) off its index covers the rest
+    private ResourceStamp collectionStamp() {
+        return ResourceStamp.ofCollection(count(), repository.findLastUpdate());
     }
 
     public PersonDTO findById(Long id) {
+        return findById(id, stamp -> false);
+    }
+
+    // the validators come from the row that is mapped, so they always describe the body; null when notModified
+    // accepts them, before anything is mapped
+    public PersonDTO findById(Long id, Predicate<ResourceStamp> notModified) {
         logger.info("Finding one Person! {}", id);
 
         var entity = repository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("No records found for this ID!"));
+        if (notModified.test(ResourceStamp.of(entity.getVersion(), entity.getUpdatedAt()))) return null;
         var dto = parseObject(entity, PersonDTO.class);
         addHateosLinks(dto);
         return dto;
     }
 
+    @Transactional
     public PersonDTO create(PersonDTO person) {
         if (person == null) throw new RequiredObjectIsNullException();
         logger.info("Creating one Person! ");
         var entity = parseObject(person, Person.class);
         var dto = parseObject(repository.save(entity), PersonDTO.class);
+        afterCommit.evict(totalCount::invalidate);
+        evictResponse(dto.getId());
+        names.put(dto.getId(), dto.getFirstName(), dto.getLastName(), dto.getEnabled());
         addHateosLinks(dto);
         return dto;
     }
 
-    public PersonDTO update(PersonDTO person) {
+    // stateless session: no persistence context, no dirty checking, and with the pooled ids the inserts/upserts
+    // of a chunk go out as one JDBC batch (one multi-row statement with rewriteBatchedStatements). Items with an
+    // id that exists are upserted, the rest get a new id; each chunk commits on its own
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void bulkCreate(Iterator<PersonDTO> people, Consumer<BulkResultDTO> results) {
+        logger.info("Bulk creating people! batch size: {}", bulkBatchSize);
+        var sessionFactory = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class);
+        List<PersonDTO> chunk = new ArrayList<>(bulkBatchSize);
+        int index = 0;
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            session.setJdbcBatchSize(bulkBatchSize);
+            while (true) {
+                PersonDTO person;
+                try {
+                    if (!people.hasNext()) break;
+                    person = people.next();
+                } catch (RuntimeException e) {
+                    // unreadable input: what was read so far is still written, then the request stops here
+                    index = writeChunk(session, chunk, index, results);
+                    results.accept(BulkResultDTO.failed(index, "Unreadable item: " + e.getMessage()));
+                    return;
+                }
+                chunk.add(person);
+                if (chunk.size() == bulkBatchSize) {
+                    index = writeChunk(session, chunk, index, results);
+                    chunk.clear();
+                }
+            }
+            writeChunk(session, chunk, index, results);
+        } finally {
+            afterCommit.evict(totalCount::invalidate);
+        }
+    }
+
+    private int writeChunk(StatelessSession session, List<PersonDTO> chunk, int firstIndex,
+                           Consumer<BulkResultDTO> results) {
+        if (chunk.isEmpty()) return firstIndex;
+        BulkResultDTO[] outcome = new BulkResultDTO[chunk.size()];
+        List<Person> entities = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            PersonDTO dto = chunk.get(i);
+            if (dto == null || dto.getFirstName() == null || dto.getLastName() == null
+                    || dto.getAddress() == null || dto.getGender() == null) {
+                outcome[i] = BulkResultDTO.failed(firstIndex + i, "firstName, lastName, address and gender are required!");
+                entities.add(null);
+            } else {
+                entities.add(parseObject(dto, Person.class));
+            }
+        }
+
+        Set<Long> upserted = new HashSet<>();
+        Transaction tx = session.beginTransaction();
+        try {
+            Map<Long, Long> versions = currentVersions(session, entities);
+            Instant now = Instant.now();
+            for (Person entity : entities) {
+                if (entity == null) continue;
+                entity.setUpdatedAt(now);
+                if (entity.getEnabled() == null) entity.setEnabled(true);
+                Long version = entity.getId() != null ? versions.get(entity.getId()) : null;
+                if (version != null) {
+                    entity.setVersion(version);
+                    session.upsert(entity);
+                    upserted.add(entity.getId());
+                } else {
+                    entity.setId(null);
+                    entity.setVersion(null);
+                    session.insert(entity);
+                }
+            }
+            tx.commit();
+            for (Person entity : entities) {
+                if (entity != null) names.put(entity.getId(), entity.getFirstName(), entity.getLastName(), entity.getEnabled());
+            }
+        } catch (RuntimeException e) {
+            if (tx.isActive()) tx.rollback();
+            logger.error("Bulk chunk starting at {} failed", firstIndex, e);
+            for (int i = 0; i < outcome.length; i++) {
+                if (outcome[i] == null) outcome[i] = BulkResultDTO.failed(firstIndex + i, e.getMessage());
+            }
+            upserted.clear();
+        }
+
+        for (int i = 0; i < outcome.length; i++) {
+            if (outcome[i] == null) {
+                Person entity = entities.get(i);
+                var status = upserted.contains(entity.getId()) ? BulkResultDTO.Status.UPSERTED : BulkResultDTO.Status.CREATED;
+                outcome[i] = new BulkResultDTO(firstIndex + i, entity.getId(), status, null);
+            }
+            results.accept(outcome[i]);
+        }
+        // the stateless session bypasses the second-level cache: drop what it may hold for the upserted rows
+        for (Long id : upserted) {
+            session.getFactory().getCache().evictEntityData(Person.class, id);
+            evictResponse(id);
+        }
+        return firstIndex + chunk.size();
+    }
+
+    // one query per chunk: the ids that already exist and their current version (an upsert bumps it)
+    private static Map<Long, Long> currentVersions(StatelessSession session, List<Person> entities) {
+        List<Long> ids = entities.stream()
+                .filter(Objects::nonNull)
+                .map(Person::getId)
+                .filter(Objects::nonNull)
+                .toList();
+        if (ids.isEmpty()) return Map.of();
+        return session.createSelectionQuery("SELECT p.id, p.version FROM Person p WHERE p.id IN :ids", Object[].class)
+                .setParameter("ids", ids)
+                .getResultList()
+                .stream()
+                .collect(Collectors.toMap(row -> (Long) row[0], row -> (Long) row[1]));
+    }
+
+    // one UPDATE carrying the If-Match in its WHERE; the representation is read back only when the caller wants it
+    @Transactional
+    public Written<PersonDTO> update(PersonDTO person, String ifMatch, boolean representation) {
         if(person == null) throw new RequiredObjectIsNullException();
         logger.info("Updating one Person! ");
-        Person entity = repository.findById(person.getId())
-                .orElseThrow(() -> new ResourceNotFoundException("No records found for this ID!"));
+        if (repository.update(parseObject(person, Person.class), ResourceStamp.versions(ifMatch)) == 0) {
+            throw notWritten(person.getId(), ifMatch != null && !ifMatch.isBlank());
+        }
+        evict(person.getId());
+        names.rename(person.getId(), person.getFirstName(), person.getLastName());
+        return written(person.getId(), representation);
+    }
 
-        entity.setFirstName(person.getFirstName());
-        entity.setLastName(person.getLastName());
-        entity.setAddress(person.getAddress());
-        entity.setGender(person.getGender());
-        PersonDTO dto = parseObject(repository.save(entity), PersonDTO.class);
-        addHateosLinks(dto);
-        return dto;
+    // read (usually a second-level hit), patch, then UPDATE only the changed columns guarded by the version that was
+    // read; a patch that changes nothing writes nothing
+    @Transactional
+    public Written<PersonDTO> patch(Long id, JsonNode patch, String contentType, String ifMatch, boolean representation) {
+        logger.info("Patching one Person! {}", id);
+        Person entity = repository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("No records found for this ID!"));
+        if (!ResourceStamp.of(entity.getVersion(), entity.getUpdatedAt()).matches(ifMatch)) {
+            throw new PreconditionFailedException();
+        }
+        // the row is written with JDBC: a managed instance would shadow it when the representation is read back
+        entityManager.detach(entity);
+        PersonDTO dto = parseObject(entity, PersonDTO.class);
+        var changes = patches.changes(dto, patch, contentType,
+                PersonRepositoryCustom.PATCHABLE_COLUMNS.keySet(), PersonRepositoryCustom.REQUIRED);
+        if (changes.isEmpty()) return written(entity, dto, representation);
+        if (repository.patch(id, changes, entity.getVersion()) == 0) throw notWritten(id, true);
+        evict(id);
+        names.put(id, (String) changes.getOrDefault("firstName", dto.getFirstName()),
+                (String) changes.getOrDefault("lastName", dto.getLastName()),
+                (Boolean) changes.getOrDefault("enabled", dto.getEnabled()));
+        return written(id, representation);
     }
 
+    @Transactional
     public void delete(Long id) {
         logger.info("Delete one Person! {}", id);
-        Person entity = repository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("No records found for this ID!"));
-        repository.delete(entity);
+        if (repository.deleteRow(id) == 0) throw new ResourceNotFoundException("No records found for this ID!");
+        afterCommit.evict(totalCount::invalidate);
+        evict(id);
+        names.remove(id);
     }
 
+    // disabling a disabled person writes nothing; a 0 count (missing, already disabled or stale If-Match) is told
+    // apart by the read that builds the representation anyway
     @Transactional
-    public PersonDTO disabledPerson(Long id) {
+    public Written<PersonDTO> disabledPerson(Long id, String ifMatch, boolean representation) {
         logger.info("Disabled person, id! {}", id);
-        repository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("No book found for this ID! " + id));
-        repository.disabledPerson(id);
-        Person entity = repository.findById(id).get();
-        PersonDTO dto = parseObject(entity, PersonDTO.class);
+        if (repository.disable(id, ResourceStamp.versions(ifMatch)) > 0) {
+            evict(id);
+            names.remove(id);
+            return written(id, representation);
+        }
+        Person entity = repository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("No records found for this ID!"));
+        if (Boolean.TRUE.equals(entity.getEnabled())
+                || !ResourceStamp.of(entity.getVersion(), entity.getUpdatedAt()).matches(ifMatch)) {
+            throw new PreconditionFailedException();
+        }
+        return written(entity, null, representation);
+    }
+
+    // the row as the write left it, read in its transaction with JDBC: just the validators for a minimal answer
+    private Written<PersonDTO> written(Long id, boolean representation) {
+        return written(repository.findRow(id)
+                .orElseThrow(() -> new ResourceNotFoundException("No records found for this ID!")), null, representation);
+    }
+
+    private Written<PersonDTO> written(Person entity, PersonDTO dto, boolean representation) {
+        var stamp = ResourceStamp.of(entity.getVersion(), entity.getUpdatedAt());
+        if (!representation) return new Written<>(stamp, null);
+        if (dto == null) dto = parseObject(entity, PersonDTO.class);
         addHateosLinks(dto);
-        return dto;
+        return new Written<>(stamp, dto);
+    }
+
+    // only the failure path pays for telling a missing row from a failed If-Match
+    private RuntimeException notWritten(Long id, boolean conditional) {
+        if (id != null && conditional && repository.existsById(id)) {
+            return new PreconditionFailedException();
+        }
+        return new ResourceNotFoundException("No records found for this ID!");
+    }
+
+    // the JDBC writes are invisible to Hibernate: the row's second-level entry goes with its cached response
+    private void evict(Long id) {
+        afterCommit.evict(() -> entityManager.getEntityManagerFactory().getCache().evict(Person.class, id));
+        evictResponse(id);
+    }
+
+    private void evictResponse(Long id) {
+        responseCache.evict(links.path() + "/" + id);
     }
 
     public static void addHateosLinks(PersonDTO dto) {
-        dto.add(linkTo(methodOn(PersonController.class).findById(dto.getId())).withSelfRel().withType("GET"));
-        dto.add(linkTo(methodOn(PersonController.class).findAll()).withRel("findAll").withType("GET"));
-        dto.add(linkTo(methodOn(PersonController.class).create(dto)).withRel("create").withType("POST"));
-        dto.add(linkTo(methodOn(PersonController.class).update(dto)).withRel("update").withType("PUT"));
-        dto.add(linkTo(methodOn(PersonController.class).disabledPerson(dto.getId())).withRel("disabledPerson").withType("PATCH"));
-        dto.add(linkTo(methodOn(PersonController.class).delete(dto.getId())).withRel("delete").withType("DELETE"));
+        if (LeanRepresentation.requested()) return;
+        addItemLinks(dto);
+        dto.add(links.collection("findAll", "GET"));
+        dto.add(links.collection("create", "POST"));
+        dto.add(links.collection("update", "PUT"));
+    }
+
+    public static void addItemLinks(PersonDTO dto) {
+        dto.add(links.item(dto.getId(), IanaLinkRelations.SELF_VALUE, "GET"));
+        dto.add(links.item(dto.getId(), "disabledPerson", "PATCH"));
+        dto.add(links.item(dto.getId(), "patch", "PATCH"));
+        dto.add(links.item(dto.getId(), "delete", "DELETE"));
     }
 
 }
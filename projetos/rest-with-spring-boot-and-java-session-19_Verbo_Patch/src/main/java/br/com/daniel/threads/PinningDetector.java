@@ -0,0 +1,85 @@
+package br.com.daniel.threads;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+// in virtual thread mode, a virtual thread that blocks while it can't unmount (inside synchronized, or in native
+// code) holds its carrier, and a few of them stall every request. JFR reports each pin longer than
+// virtualThreads.pinnedThreshold: all of them are timed in jvm.threads.virtual.pinned, and each distinct stack is
+// logged once
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class PinningDetector implements SmartLifecycle {
+
+    static final String EVENT = "jdk.VirtualThreadPinned";
+    private static final int FRAMES = 12;
+
+    private final Logger logger = LoggerFactory.getLogger(PinningDetector.class.getName());
+
+    private final Duration threshold;
+    private final Timer pinned;
+    private final Set<String> logged = ConcurrentHashMap.newKeySet();
+
+    private volatile RecordingStream stream;
+
+    public PinningDetector(MeterRegistry registry,
+                           @Value("${virtualThreads.pinnedThreshold:20ms}") Duration threshold) {
+        this.threshold = threshold;
+        this.pinned = Timer.builder("jvm.threads.virtual.pinned")
+                .description("Virtual threads that blocked while pinned to their carrier")
+                .register(registry);
+    }
+
+    @Override
+    public void start() {
+        var recording = new RecordingStream();
+        recording.enable(EVENT).withThreshold(threshold).withStackTrace();
+        recording.onEvent(EVENT, this::pinned);
+        recording.startAsync();
+        stream = recording;
+        logger.info("Reporting virtual threads pinned for more than {}", threshold);
+    }
+
+    @Override
+    public void stop() {
+        var recording = stream;
+        stream = null;
+        if (recording != null) recording.close();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return stream != null;
+    }
+
+    private void pinned(RecordedEvent event) {
+        pinned.record(event.getDuration());
+        String stack = event.getStackTrace() == null ? "(no stack trace)" : event.getStackTrace().getFrames().stream()
+                .limit(FRAMES)
+                .map(PinningDetector::frame)
+                .collect(Collectors.joining("\n\tat "));
+        if (logged.add(stack)) {
+            logger.warn("Virtual thread pinned for {} ms, at\n\tat {}", event.getDuration().toMillis(), stack);
+        }
+    }
+
+    private static String frame(RecordedFrame frame) {
+        var method = frame.getMethod();
+        return method.getType().getName() + "." + method.getName() + ":" + frame.getLineNumber();
+    }
+}
@@ -0,0 +1,9 @@
+ALTER TABLE `person`
+	ADD COLUMN `version` BIGINT NOT NULL DEFAULT 0 AFTER `enabled`,
+	ADD COLUMN `updated_at` DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6) AFTER `version`,
+	ADD INDEX `idx_person_updated_at` (`updated_at`);
+
+ALTER TABLE `books`
+	ADD COLUMN `version` BIGINT NOT NULL DEFAULT 0 AFTER `title`,
+	ADD COLUMN `updated_at` DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6) AFTER `version`,
+	ADD INDEX `idx_books_updated_at` (`updated_at`);
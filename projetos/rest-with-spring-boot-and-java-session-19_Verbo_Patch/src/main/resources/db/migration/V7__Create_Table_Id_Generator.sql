@@ -0,0 +1,10 @@
+CREATE TABLE `id_generator` (
+  `sequence_name` varchar(64) NOT NULL,
+  `next_val` bigint NOT NULL,
+  PRIMARY KEY (`sequence_name`)
+) ENGINE=InnoDB;
+
+-- pooled optimizer: each block of 50 ids (allocationSize of Person) ends at next_val,
+-- so the first block starts right after the ids already in use
+INSERT INTO `id_generator` (`sequence_name`, `next_val`)
+SELECT 'person', COALESCE(MAX(`id`), 0) + 50 FROM `person`;
@@ -0,0 +1,4 @@
+-- ranked search over title and author: the MATCH (...) column list in BookRepositoryCustomImpl.search has to be
+-- exactly this one for the index to be used
+ALTER TABLE `books`
+	ADD FULLTEXT INDEX `ft_books_title_author` (`title`, `author`);
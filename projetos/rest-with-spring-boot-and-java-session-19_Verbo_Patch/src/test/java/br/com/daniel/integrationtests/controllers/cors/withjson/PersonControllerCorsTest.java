@@ -2,9 +2,9 @@ package br.com.daniel.integrationtests.controllers.cors.withjson;
 
 import br.com.daniel.config.TestConfigs;
 import br.com.daniel.integrationtests.dto.PersonDTO;
+import br.com.daniel.integrationtests.dto.wrappers.json.WrapperPersonDTO;
 import br.com.daniel.integrationtests.testcontainers.AbstractIntegrationTest;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.restassured.builder.RequestSpecBuilder;
@@ -189,8 +189,8 @@ class PersonControllerCorsTest extends AbstractIntegrationTest {
                 .body()
                 .asString();
 
-        List<PersonDTO> people = objectMapper.readValue(content, new TypeReference<>() {
-        });
+        WrapperPersonDTO wrapper = objectMapper.readValue(content, WrapperPersonDTO.class);
+        List<PersonDTO> people = wrapper.getEmbedded().getPeople();
 
         assertNotNull(people);
         assertFalse(people.isEmpty(), "The list of people should not be empty");
@@ -2,9 +2,9 @@ package br.com.daniel.integrationtests.controllers.withxml;
 
 import br.com.daniel.config.TestConfigs;
 import br.com.daniel.integrationtests.dto.PersonDTO;
+import br.com.daniel.integrationtests.dto.wrappers.xml.PagedModelPerson;
 import br.com.daniel.integrationtests.testcontainers.AbstractIntegrationTest;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.dataformat.xml.XmlMapper;
 import io.restassured.builder.RequestSpecBuilder;
@@ -114,7 +114,8 @@ class PersonControllerXMLTest extends AbstractIntegrationTest {
                 .body()
                 .asString();
 
-        List<PersonDTO> people = xmlMapper.readValue(content, new TypeReference<>() {});
+        PagedModelPerson wrapper = xmlMapper.readValue(content, PagedModelPerson.class);
+        List<PersonDTO> people = wrapper.getContent();
 
         assertNotNull(people);
         assertFalse(people.isEmpty(), "The list of people should not be empty");
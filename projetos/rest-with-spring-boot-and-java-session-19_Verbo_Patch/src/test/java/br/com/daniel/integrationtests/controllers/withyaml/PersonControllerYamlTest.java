@@ -3,6 +3,7 @@ package br.com.daniel.integrationtests.controllers.withyaml;
 import br.com.daniel.config.TestConfigs;
 import br.com.daniel.integrationtests.controllers.withyaml.mapper.YAMLMapper;
 import br.com.daniel.integrationtests.dto.PersonDTO;
+import br.com.daniel.integrationtests.dto.wrappers.xml.PagedModelPerson;
 import br.com.daniel.integrationtests.testcontainers.AbstractIntegrationTest;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import io.restassured.builder.RequestSpecBuilder;
@@ -17,7 +18,6 @@ import org.junit.jupiter.api.*;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 
-import java.util.Arrays;
 import java.util.List;
 
 import static io.restassured.RestAssured.given;
@@ -120,9 +120,9 @@ class PersonControllerYamlTest extends AbstractIntegrationTest {
                 .contentType(MediaType.APPLICATION_YAML_VALUE)
                 .extract()
                 .body()
-                .as(PersonDTO[].class, yamlMapper);
+                .as(PagedModelPerson.class, yamlMapper);
 
-        List<PersonDTO> people = Arrays.asList(content);
+        List<PersonDTO> people = content.getContent();
 
         assertNotNull(people);
         assertFalse(people.isEmpty(), "The list of people should not be empty");
@@ -0,0 +1,130 @@
+package br.com.daniel.integrationtests.datasource;
+
+import br.com.daniel.datasource.ReadYourWritesFilter;
+import br.com.daniel.integrationtests.dto.PersonDTO;
+import io.restassured.builder.RequestSpecBuilder;
+import io.restassured.specification.RequestSpecification;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.*;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ContextConfiguration;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.lifecycle.Startables;
+
+import java.sql.DriverManager;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.*;
+
+// two independent MySQL containers stand in for a primary and its replica: the replica gets the schema plus a row the
+// primary doesn't have, so the body of a read tells which one answered
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ContextConfiguration(initializers = ReplicaRoutingTest.Initializer.class)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class ReplicaRoutingTest {
+
+    static final long REPLICA_ONLY_ID = 999999L;
+
+    static MySQLContainer<?> primary = new MySQLContainer<>("mysql:9.1.0");
+    static MySQLContainer<?> replica = new MySQLContainer<>("mysql:9.1.0");
+
+    static class Initializer implements ApplicationContextInitializer<ConfigurableApplicationContext> {
+
+        @Override
+        public void initialize(ConfigurableApplicationContext applicationContext) {
+            Startables.deepStart(Stream.of(primary, replica)).join();
+            Flyway.configure()
+                    .dataSource(replica.getJdbcUrl(), replica.getUsername(), replica.getPassword())
+                    .load()
+                    .migrate();
+            try (var connection = DriverManager.getConnection(replica.getJdbcUrl(), replica.getUsername(), replica.getPassword())) {
+                connection.createStatement().executeUpdate("INSERT INTO person " +
+                        "(id, first_name, last_name, address, gender, enabled) " +
+                        "VALUES (" + REPLICA_ONLY_ID + ", 'Replica', 'Only', 'Nowhere', 'Male', true)");
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            applicationContext.getEnvironment().getPropertySources().addFirst(new MapPropertySource("replicas", Map.of(
+                    "spring.datasource.url", primary.getJdbcUrl(),
+                    "spring.datasource.username", primary.getUsername(),
+                    "spring.datasource.password", primary.getPassword(),
+                    "readReplicas.urls", replica.getJdbcUrl(),
+                    "readReplicas.username", replica.getUsername(),
+                    "readReplicas.password", replica.getPassword(),
+                    "readReplicas.readYourWrites", "1m")));
+        }
+    }
+
+    @LocalServerPort
+    int port;
+
+    private static String cookie;
+
+    private RequestSpecification specification() {
+        return new RequestSpecBuilder()
+                .setBasePath("/api/person/v1")
+                .setPort(port)
+                .build();
+    }
+
+    // the collection is never cached, so the page reflects the database that served it
+    private String replicaOnlyPage(RequestSpecification specification) {
+        return given(specification)
+                .accept(MediaType.APPLICATION_JSON_VALUE)
+                .queryParam("after", REPLICA_ONLY_ID - 1)
+                .queryParam("limit", 1)
+                .when()
+                .get()
+                .then()
+                .statusCode(200)
+                .extract()
+                .body()
+                .asString();
+    }
+
+    @Test
+    @Order(1)
+    void readsGoToTheReplica() {
+        assertTrue(replicaOnlyPage(specification()).contains("Replica"));
+    }
+
+    @Test
+    @Order(2)
+    void writesGoToThePrimary() {
+        var person = new PersonDTO();
+        person.setFirstName("Daniel");
+        person.setLastName("Lima");
+        person.setAddress("Guarulhos - São Paulo - BR");
+        person.setGender("Male");
+        person.setEnabled(true);
+
+        cookie = given(specification())
+                .contentType(MediaType.APPLICATION_JSON_VALUE)
+                .accept(MediaType.APPLICATION_JSON_VALUE)
+                .body(person)
+                .when()
+                .post()
+                .then()
+                .statusCode(201)
+                .extract()
+                .cookie(ReadYourWritesFilter.COOKIE);
+        assertNotNull(cookie);
+    }
+
+    @Test
+    @Order(3)
+    void readYourWritesWindowReadsFromThePrimary() {
+        var specification = new RequestSpecBuilder()
+                .addRequestSpecification(specification())
+                .addCookie(ReadYourWritesFilter.COOKIE, cookie)
+                .build();
+        assertFalse(replicaOnlyPage(specification).contains("Replica"));
+    }
+}
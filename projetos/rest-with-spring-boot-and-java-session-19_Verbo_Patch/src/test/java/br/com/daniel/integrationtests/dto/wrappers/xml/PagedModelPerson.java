@@ -0,0 +1,27 @@
+package br.com.daniel.integrationtests.dto.wrappers.xml;
+
+import br.com.daniel.integrationtests.dto.PersonDTO;
+import jakarta.xml.bind.annotation.XmlRootElement;
+
+import java.io.Serializable;
+import java.util.List;
+
+// XML and YAML are not HAL: the CollectionModel comes as links + content
+@XmlRootElement
+public class PagedModelPerson implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private List<PersonDTO> content;
+
+    public PagedModelPerson() {
+    }
+
+    public List<PersonDTO> getContent() {
+        return content;
+    }
+
+    public void setContent(List<PersonDTO> content) {
+        this.content = content;
+    }
+}
@@ -0,0 +1,117 @@
+package br.com.daniel.integrationtests.repository;
+
+import br.com.daniel.integrationtests.testcontainers.AbstractIntegrationTest;
+import br.com.daniel.repository.BookRepository;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// opt-in, it loads a generated catalog of a million books (mvn test -Dtest=BookSearchBenchmarkTest -Dbenchmark=true,
+// -Dbenchmark.rows=N to resize) and compares the FULLTEXT search with the LIKE scan it replaces
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class BookSearchBenchmarkTest extends AbstractIntegrationTest {
+
+    static final int ROWS = Integer.getInteger("benchmark.rows", 1_000_000);
+    static final int RUNS = 50;
+
+    static final String WORDS = "'Clean','Domain','Driven','Design','Patterns','Refactoring','Java','Spring','Kotlin'," +
+            "'Reactive','Systems','Effective','Concurrency','Practice','Microservices','Architecture','Testing'," +
+            "'Legacy','Code','Performance'";
+    static final String NAMES = "'Robert','Martin','Eric','Evans','Joshua','Bloch','Brian','Goetz','Kent','Beck'," +
+            "'Michael','Feathers','Sam','Newman','Vaughn','Vernon','Craig','Walls','Josh','Long'";
+
+    static final List<String> QUERIES = List.of("refactoring", "domain driven design", "concurrency goetz",
+            "reactive spring", "legacy code feathers", "microservices newman");
+
+    private final Logger logger = LoggerFactory.getLogger(BookSearchBenchmarkTest.class.getName());
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private BookRepository repository;
+
+    // one statement per 100k rows from a recursive counter; the index is dropped during the load and rebuilt once,
+    // as a bulk load would do it
+    @BeforeAll
+    void generateCatalog() {
+        long start = System.nanoTime();
+        jdbc.execute("ALTER TABLE books DROP INDEX ft_books_title_author");
+        jdbc.execute((ConnectionCallback<Void>) connection -> {
+            try (var statement = connection.createStatement()) {
+                statement.execute("SET SESSION cte_max_recursion_depth = " + ROWS);
+                for (int from = 0; from < ROWS; from += 100_000) {
+                    int to = Math.min(ROWS, from + 100_000);
+                    statement.executeUpdate("INSERT INTO books (author, launch_date, price, title) " +
+                            "WITH RECURSIVE n (i) AS (SELECT " + from + " UNION ALL SELECT i + 1 FROM n WHERE i < " + (to - 1) + ") " +
+                            "SELECT CONCAT(ELT(1 + i % 20, " + NAMES + "), ' ', ELT(1 + (i DIV 20) % 20, " + NAMES + ")), " +
+                            "NOW(6) - INTERVAL (i % 3650) DAY, 10 + i % 90, " +
+                            "CONCAT(ELT(1 + i % 20, " + WORDS + "), ' ', ELT(1 + (i DIV 20) % 20, " + WORDS + "), ' ', " +
+                            "ELT(1 + (i DIV 400) % 20, " + WORDS + "), ' ', i) FROM n");
+                }
+            }
+            return null;
+        });
+        jdbc.execute("ALTER TABLE books ADD FULLTEXT INDEX ft_books_title_author (title, author)");
+        jdbc.execute("ANALYZE TABLE books");
+        logger.info("Generated {} books in {} ms", ROWS, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @Test
+    void searchUsesTheFulltextIndex() {
+        Map<String, Object> plan = jdbc.queryForMap("EXPLAIN SELECT id FROM books " +
+                "WHERE MATCH (title, author) AGAINST ('refactoring' IN NATURAL LANGUAGE MODE)");
+        assertEquals("fulltext", plan.get("type"));
+        assertEquals("ft_books_title_author", plan.get("key"));
+    }
+
+    @Test
+    void searchIsFasterThanAScan() {
+        QUERIES.forEach(query -> repository.search(query, 0, 12));
+
+        long[] fulltext = time(query -> repository.search(query, 0, 12).size());
+        // ranked like the search (rows matching in both columns first), so it can't stop at the first 12 hits either
+        long[] scan = time(query -> {
+            String term = "%" + query.split(" ")[0] + "%";
+            return jdbc.queryForList("SELECT id FROM books WHERE title LIKE ? OR author LIKE ? " +
+                    "ORDER BY (title LIKE ?) + (author LIKE ?) DESC, id LIMIT 12", Long.class, term, term, term, term).size();
+        });
+
+        logger.info("{} books, {} queries: FULLTEXT p50 {} ms p95 {} ms, LIKE scan p50 {} ms p95 {} ms",
+                ROWS, RUNS, percentile(fulltext, 50), percentile(fulltext, 95), percentile(scan, 50), percentile(scan, 95));
+        assertTrue(repository.search("refactoring", 0, 12).getFirst().score() > 0);
+        assertTrue(percentile(fulltext, 95) < percentile(scan, 50));
+    }
+
+    private long[] time(ToIntFunction<String> search) {
+        long[] millis = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            String query = QUERIES.get(i % QUERIES.size());
+            long start = System.nanoTime();
+            assertTrue(search.applyAsInt(query) > 0);
+            millis[i] = (System.nanoTime() - start) / 1_000_000;
+        }
+        Arrays.sort(millis);
+        return millis;
+    }
+
+    private static long percentile(long[] sorted, int percentile) {
+        return sorted[Math.min(sorted.length - 1, sorted.length * percentile / 100)];
+    }
+}
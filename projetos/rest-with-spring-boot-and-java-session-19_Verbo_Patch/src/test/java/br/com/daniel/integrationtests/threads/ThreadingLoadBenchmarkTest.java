@@ -0,0 +1,220 @@
+package br.com.daniel.integrationtests.threads;
+
+import br.com.daniel.Startup;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.MySQLContainer;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// opt-in (mvn test -Dtest=ThreadingLoadBenchmarkTest -Dbenchmark=true). Starts the application twice against the
+// same database, as configured by default (Tomcat's platform thread pool) and with the high-concurrency profile
+// (virtual threads), with every statement slowed down by benchmark.slowDb, and drives both with benchmark.clients
+// concurrent clients: a third list people (database bound), a third ask the in-memory autocomplete and a third
+// stream every person as NDJSON. Throughput and p99 of each are logged and compared
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ThreadingLoadBenchmarkTest {
+
+    static final int CLIENTS = Integer.getInteger("benchmark.clients", 1000);
+    static final Duration SLOW_DB = Duration.ofMillis(Long.getLong("benchmark.slowDb", 50));
+    static final Duration WARM_UP = Duration.ofSeconds(5);
+    static final Duration RUN = Duration.ofSeconds(Long.getLong("benchmark.seconds", 30));
+    static final int POOL_SIZE = 50;
+
+    static final String DATABASE = "/api/person/v1?limit=10";
+    static final String IN_MEMORY = "/api/person/v1/autocomplete?q=a";
+    static final String STREAM = "/api/person/v1/stream";
+    static final List<String> PATHS = List.of(DATABASE, IN_MEMORY, STREAM);
+
+    record Result(String mode, String path, long requests, long errors, double throughput, long p50, long p99) {
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(ThreadingLoadBenchmarkTest.class.getName());
+
+    private final MySQLContainer<?> mysql = new MySQLContainer<>("mysql:9.1.0")
+            .withCommand("--max-connections=500");
+
+    @BeforeAll
+    void startDatabase() {
+        mysql.start();
+    }
+
+    @AfterAll
+    void stopDatabase() {
+        mysql.stop();
+    }
+
+    @Test
+    void highConcurrencyKeepsFastRequestsFast() throws Exception {
+        var platform = benchmark("default");
+        var virtual = benchmark("high-concurrency");
+
+        for (int path = 0; path < PATHS.size(); path++) {
+            for (var result : List.of(platform.get(path), virtual.get(path))) {
+                logger.info("{}, {} clients, {} ms per statement, {}: {} requests ({} errors), {} req/s, " +
+                                "p50 {} ms, p99 {} ms", result.mode(), CLIENTS, SLOW_DB.toMillis(), result.path(),
+                        result.requests(), result.errors(), String.format("%.1f", result.throughput()), result.p50(),
+                        result.p99());
+            }
+        }
+        // the database bound requests are capped by the connection pool either way; what changes is that the
+        // in-memory ones no longer wait for a request thread behind them
+        assertTrue(virtual.get(1).p99() < platform.get(1).p99());
+        assertTrue(virtual.get(0).throughput() >= platform.get(0).throughput() * 0.9);
+        assertTrue(virtual.get(2).throughput() >= platform.get(2).throughput() * 0.9);
+    }
+
+    private List<Result> benchmark(String profile) throws Exception {
+        boolean virtualThreads = !"default".equals(profile);
+        try (var application = start(profile)) {
+            int port = ((WebServerApplicationContext) application).getWebServer().getPort();
+            var results = load(profile, "http://localhost:" + port);
+            if (virtualThreads) {
+                var pinned = application.getBean(MeterRegistry.class).find("jvm.threads.virtual.pinned").timer();
+                logger.info("virtual threads pinned {} times, {} ms in total", pinned == null ? 0 : pinned.count(),
+                        pinned == null ? 0 : (long) pinned.totalTime(TimeUnit.MILLISECONDS));
+            }
+            return results;
+        }
+    }
+
+    private ConfigurableApplicationContext start(String profile) {
+        return new SpringApplicationBuilder(Startup.class)
+                .profiles(profile)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=" + mysql.getJdbcUrl(),
+                        "spring.datasource.username=" + mysql.getUsername(),
+                        "spring.datasource.password=" + mysql.getPassword(),
+                        // the same pool for both, so only the threading differs
+                        "spring.datasource.hikari.maximum-pool-size=" + POOL_SIZE,
+                        // measure the threading, not the caches in front of the database
+                        "responseCache.enabled=false",
+                        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false")
+                .initializers(context -> context.getBeanFactory().addBeanPostProcessor(slowDatabase()))
+                .run();
+    }
+
+    // every group runs for the same time on the same clients, so none can finish early and free the server
+    private List<Result> load(String mode, String baseUrl) throws Exception {
+        List<ConcurrentLinkedQueue<Long>> latencies = new ArrayList<>();
+        List<AtomicLong> errors = new ArrayList<>();
+        for (int path = 0; path < PATHS.size(); path++) {
+            latencies.add(new ConcurrentLinkedQueue<>());
+            errors.add(new AtomicLong());
+        }
+        long start = System.nanoTime();
+        long measureFrom = start + WARM_UP.toNanos();
+        long end = measureFrom + RUN.toNanos();
+        try (var clients = Executors.newVirtualThreadPerTaskExecutor();
+             var http = HttpClient.newBuilder()
+                     .version(HttpClient.Version.HTTP_1_1)
+                     .connectTimeout(Duration.ofSeconds(30))
+                     .executor(clients)
+                     .build()) {
+            for (int client = 0; client < CLIENTS; client++) {
+                int group = client % PATHS.size();
+                var request = HttpRequest.newBuilder(URI.create(baseUrl + PATHS.get(group)))
+                        .header("Accept", STREAM.equals(PATHS.get(group)) ? "application/x-ndjson" : "application/json")
+                        .timeout(Duration.ofSeconds(60))
+                        .build();
+                clients.submit(() -> {
+                    while (System.nanoTime() < end) {
+                        long sent = System.nanoTime();
+                        boolean ok;
+                        try {
+                            ok = http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+                        } catch (Exception e) {
+                            ok = false;
+                        }
+                        long received = System.nanoTime();
+                        if (sent < measureFrom || received > end) continue;
+                        if (ok) latencies.get(group).add((received - sent) / 1_000_000);
+                        else errors.get(group).incrementAndGet();
+                    }
+                    return null;
+                });
+            }
+        }
+        List<Result> results = new ArrayList<>();
+        for (int group = 0; group < PATHS.size(); group++) {
+            long[] millis = latencies.get(group).stream().mapToLong(Long::longValue).sorted().toArray();
+            assertTrue(millis.length > 0, mode + " " + PATHS.get(group) + " never answered");
+            results.add(new Result(mode, PATHS.get(group), millis.length, errors.get(group).get(),
+                    millis.length / (double) RUN.toSeconds(), percentile(millis, 50), percentile(millis, 99)));
+        }
+        return results;
+    }
+
+    private static long percentile(long[] sorted, int percentile) {
+        return sorted[Math.min(sorted.length - 1, sorted.length * percentile / 100)];
+    }
+
+    // wraps the pool itself, below the lazy/routing proxies: each statement holds its connection SLOW_DB longer,
+    // as a loaded database would
+    private static BeanPostProcessor slowDatabase() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if ("dataSource".equals(beanName) && bean instanceof DataSource dataSource) {
+                    return proxy(DataSource.class, dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+
+    private static final Set<String> EXECUTE = Set.of("execute", "executeQuery", "executeUpdate", "executeBatch",
+            "executeLargeUpdate", "executeLargeBatch");
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, T target) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (EXECUTE.contains(method.getName())) Thread.sleep(SLOW_DB);
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (result instanceof Connection connection) return proxy(Connection.class, connection);
+            if (result instanceof CallableStatement statement) return proxy(CallableStatement.class, statement);
+            if (result instanceof PreparedStatement statement) return proxy(PreparedStatement.class, statement);
+            if (result instanceof Statement statement) return proxy(Statement.class, statement);
+            return result;
+        };
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+}
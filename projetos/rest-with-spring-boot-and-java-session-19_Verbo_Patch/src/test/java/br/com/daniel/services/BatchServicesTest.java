@@ -0,0 +1,213 @@
+package br.com.daniel.services;
+
+import br.com.daniel.data.ResourceStamp;
+import br.com.daniel.data.Written;
+import br.com.daniel.data.dto.BatchOperationDTO;
+import br.com.daniel.data.dto.BatchRequestDTO;
+import br.com.daniel.data.dto.BatchResultDTO;
+import br.com.daniel.data.dto.BookDTO;
+import br.com.daniel.data.dto.PersonDTO;
+import br.com.daniel.datasource.ReplicaRoutingDataSource;
+import br.com.daniel.exception.LimitExceededException;
+import br.com.daniel.exception.PreconditionFailedException;
+import br.com.daniel.exception.RequiredObjectIsNullException;
+import br.com.daniel.exception.ResourceNotFoundException;
+import br.com.daniel.unittests.mapper.mocks.MockBook;
+import br.com.daniel.unittests.mapper.mocks.MockPerson;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BatchServicesTest {
+
+    MockPerson people;
+    MockBook books;
+    ObjectMapper json = new ObjectMapper();
+
+    @Mock
+    private PersonServices personServices;
+
+    @Mock
+    private BookServices bookServices;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private BatchServices service;
+
+    @BeforeEach
+    void setUp() {
+        people = new MockPerson();
+        books = new MockBook();
+        ReflectionTestUtils.setField(service, "maxOperations", 100);
+        ReflectionTestUtils.setField(service, "parallelReads", 4);
+    }
+
+    private BatchOperationDTO operation(String id, String method, String path, Object body) {
+        return new BatchOperationDTO(id, method, path, null, body == null ? null : json.valueToTree(body));
+    }
+
+    private static Written<PersonDTO> written(PersonDTO dto) {
+        return new Written<>(ResourceStamp.of(dto.getVersion(), dto.getUpdatedAt()), dto);
+    }
+
+    private static Written<BookDTO> written(BookDTO dto) {
+        return new Written<>(ResourceStamp.of(dto.getVersion(), dto.getUpdatedAt()), dto);
+    }
+
+    private static List<Integer> statuses(List<BatchResultDTO> results) {
+        return results.stream().map(BatchResultDTO::getStatus).toList();
+    }
+
+    @Test
+    void execute() {
+        var person = people.mockDTO(1);
+        person.setVersion(3L);
+        when(personServices.create(any(PersonDTO.class))).thenReturn(person);
+        when(personServices.findById(9L)).thenThrow(new ResourceNotFoundException("No records found for this ID!"));
+
+        var results = service.execute(new BatchRequestDTO(false, List.of(
+                operation("create", "POST", "/api/person/v1", people.mockDTO(1)),
+                operation("read", "GET", "/api/person/v1/9", null),
+                operation("delete", "DELETE", "/api/book/v1/2", null),
+                operation(null, "GET", "/api/book/v1", null),
+                operation(null, "GET", "/api/export/v1/1", null))));
+
+        assertEquals(List.of(201, 404, 204, 405, 404), statuses(results));
+        assertEquals(List.of(0, 1, 2, 3, 4), results.stream().map(BatchResultDTO::getIndex).toList());
+        assertEquals("create", results.get(0).getId());
+        assertSame(person, results.get(0).getBody());
+        assertEquals(Map.of("ETag", "\"3\""), results.get(0).getHeaders());
+        assertEquals("No records found for this ID!", results.get(1).getMessage());
+        verify(bookServices).deleteById(2L);
+        verify(transactionManager, never()).getTransaction(any());
+    }
+
+    @Test
+    void executePatches() {
+        when(personServices.disabledPerson(1L, "\"2\"", true)).thenReturn(written(people.mockDTO(1)));
+        when(bookServices.patch(eq(2L), any(), eq("application/merge-patch+json"), isNull(), eq(true)))
+                .thenReturn(written(books.mockDTO(2)));
+
+        var disable = new BatchOperationDTO(null, "PATCH", "/api/person/v1/1", Map.of("if-match", "\"2\""), null);
+        var results = service.execute(new BatchRequestDTO(false, List.of(
+                disable,
+                operation(null, "patch", "/api/book/v1/2", Map.of("price", 9.9)))));
+
+        assertEquals(List.of(200, 200), statuses(results));
+        verify(personServices).disabledPerson(1L, "\"2\"", true);
+    }
+
+    @Test
+    void executeReadsInParallel() {
+        for (long id = 1; id <= 6; id++) when(bookServices.findById(id)).thenReturn(books.mockDTO((int) id));
+
+        var operations = IntStream.rangeClosed(1, 6)
+                .mapToObj(id -> operation(String.valueOf(id), "GET", "/api/book/v1/" + id, null))
+                .toList();
+        var results = service.execute(new BatchRequestDTO(false, operations));
+
+        assertEquals(Collections.nCopies(6, 200), statuses(results));
+        for (int i = 0; i < 6; i++) {
+            assertEquals(String.valueOf(i + 1), results.get(i).getId());
+            assertEquals("Title Test" + (i + 1), ((BookDTO) results.get(i).getBody()).getTitle());
+        }
+    }
+
+    @Test
+    void executeReadsInParallelOnThePrimary() {
+        var write = books.mockDTO(1);
+        when(bookServices.update(any(BookDTO.class), isNull(), eq(true))).thenReturn(written(write));
+        Map<Long, Boolean> primaryOnly = new ConcurrentHashMap<>();
+        for (long id = 1; id <= 2; id++) {
+            long book = id;
+            when(bookServices.findById(id)).thenAnswer(invocation -> {
+                primaryOnly.put(book, ReplicaRoutingDataSource.isPrimaryOnly());
+                return books.mockDTO((int) book);
+            });
+        }
+
+        ReplicaRoutingDataSource.usePrimary();
+        try {
+            service.execute(new BatchRequestDTO(false, List.of(
+                    operation("w", "PUT", "/api/book/v1", write),
+                    operation("1", "GET", "/api/book/v1/1", null),
+                    operation("2", "GET", "/api/book/v1/2", null))));
+        } finally {
+            ReplicaRoutingDataSource.clear();
+        }
+
+        // the readers run on their own threads, but read the batch's write from the primary as it would
+        assertEquals(Map.of(1L, true, 2L, true), primaryOnly);
+    }
+
+    @Test
+    void executeAtomically() {
+        var status = new SimpleTransactionStatus();
+        when(transactionManager.getTransaction(any())).thenReturn(status);
+        when(personServices.create(any(PersonDTO.class))).thenReturn(people.mockDTO(1));
+        when(personServices.update(any(PersonDTO.class), eq("\"1\""), eq(true))).thenThrow(new PreconditionFailedException());
+
+        var update = new BatchOperationDTO("update", "PUT", "/api/person/v1", Map.of("If-Match", "\"1\""),
+                json.valueToTree(people.mockDTO(2)));
+        var results = service.execute(new BatchRequestDTO(true, List.of(
+                operation("create", "POST", "/api/person/v1", people.mockDTO(1)),
+                update,
+                operation("delete", "DELETE", "/api/person/v1/3", null))));
+
+        assertEquals(List.of(424, 412, 424), statuses(results));
+        assertEquals("Rolled back: operation 1 failed", results.get(0).getMessage());
+        assertEquals("Not run: operation 1 failed", results.get(2).getMessage());
+        assertEquals(List.of("create", "update", "delete"), results.stream().map(BatchResultDTO::getId).toList());
+        assertTrue(status.isRollbackOnly());
+        verify(personServices, never()).delete(any());
+    }
+
+    @Test
+    void executeAtomicallyCommits() {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(personServices.findById(1L)).thenReturn(people.mockDTO(1));
+
+        var results = service.execute(new BatchRequestDTO(true, List.of(
+                operation(null, "GET", "/api/person/v1/1", null),
+                operation(null, "DELETE", "/api/person/v1/1", null))));
+
+        assertEquals(List.of(200, 204), statuses(results));
+        var committed = ArgumentCaptor.forClass(TransactionStatus.class);
+        verify(transactionManager).commit(committed.capture());
+        assertFalse(committed.getValue().isRollbackOnly());
+    }
+
+    @Test
+    void executeWithoutOperations() {
+        Exception exception = assertThrows(RequiredObjectIsNullException.class,
+                () -> service.execute(new BatchRequestDTO(false, List.of())));
+        assertEquals("A batch needs at least one operation!", exception.getMessage());
+
+        var tooMany = Collections.nCopies(101, operation(null, "GET", "/api/person/v1/1", null));
+        exception = assertThrows(LimitExceededException.class,
+                () -> service.execute(new BatchRequestDTO(false, tooMany)));
+        assertEquals("At most 100 operations per batch!", exception.getMessage());
+    }
+}
@@ -1,20 +1,45 @@
 package br.com.daniel.services;
 
+import br.com.daniel.cache.AfterCommit;
+import br.com.daniel.cache.ResponseCache;
 import br.com.daniel.data.dto.BookDTO;
+import br.com.daniel.exception.PreconditionFailedException;
 import br.com.daniel.exception.RequiredObjectIsNullException;
+import br.com.daniel.exception.ResourceNotFoundException;
 import br.com.daniel.model.Book;
 import br.com.daniel.repository.BookRepository;
+import br.com.daniel.repository.BookRepositoryCustom;
 import br.com.daniel.unittests.mapper.mocks.MockBook;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-
+import org.springframework.data.domain.Limit;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.time.Duration;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -29,6 +54,18 @@ class BookServicesTest {
     @Mock
     private BookRepository repository;
 
+    @Mock
+    private ResponseCache responseCache;
+
+    @Spy
+    private AfterCommit afterCommit = new AfterCommit(Duration.ZERO);
+
+    @Mock(answer = Answers.RETURNS_DEEP_STUBS)
+    private EntityManager entityManager;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
     @InjectMocks
     private BookServices service;
 
@@ -36,16 +73,24 @@ class BookServicesTest {
     void setUp() {
         input = new MockBook();
         MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(service, "meterRegistry", new SimpleMeterRegistry());
+        service.init();
     }
 
     @Test
     void findAll() {
         List<Book> list = input.mockEntityList();
-        when(repository.findAll()).thenReturn(list);
-        List<BookDTO> books = service.findAll();
-        assertNotNull(books);
+        when(repository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(14))).thenReturn(list);
+        CollectionModel<BookDTO> page = service.findAll(null, null, 14, stamp -> false);
+        assertNotNull(page);
+        List<BookDTO> books = List.copyOf(page.getContent());
         assertEquals(14, books.size());
 
+        assertTrue(page.getLink(IanaLinkRelations.SELF).isPresent());
+        assertTrue(page.getLink(IanaLinkRelations.NEXT).orElseThrow().getHref().contains("after=13"));
+        assertEquals("POST", page.getRequiredLink("create").getType());
+        assertEquals("PUT", page.getRequiredLink("update").getType());
+
         books.forEach(book -> {
             assertNotNull(book.getId());
             assertNotNull(book.getLinks());
@@ -56,17 +101,9 @@ class BookServicesTest {
                             && link.getType().equals("GET")
                     ));
 
-            assertNotNull(book.getLinks().stream()
-                    .anyMatch(link -> link.getRel().value().equals("create")
-                            && link.getHref().endsWith("/api/book/v1")
-                            && link.getType().equals("POST")
-                    ));
-
-            assertNotNull(book.getLinks().stream()
-                    .anyMatch(link -> link.getRel().value().equals("update")
-                            && link.getHref().endsWith("/api/book/v1")
-                            && link.getType().equals("PUT")
-                    ));
+            // collection-scoped links live on the wrapper only
+            assertTrue(book.getLink("create").isEmpty());
+            assertTrue(book.getLink("findAll").isEmpty());
 
             assertNotNull(book.getLinks().stream()
                     .anyMatch(link -> link.getRel().value().equals("delete")
@@ -83,6 +120,108 @@ class BookServicesTest {
 
     }
 
+    @Test
+    void search() {
+        var hits = List.of(
+                new BookRepositoryCustom.SearchHit(input.mockEntity(3), 2.75),
+                new BookRepositoryCustom.SearchHit(input.mockEntity(1), 0.5));
+        when(repository.search("clean code", 2L, 2)).thenReturn(hits);
+
+        CollectionModel<BookDTO> page = service.search(" clean code ", 1, 2);
+        List<BookDTO> books = List.copyOf(page.getContent());
+        assertEquals(2, books.size());
+        assertEquals(3L, books.get(0).getId());
+        assertEquals(2.75, books.get(0).getScore());
+        assertEquals(0.5, books.get(1).getScore());
+        assertTrue(books.get(0).getLink(IanaLinkRelations.SELF).isPresent());
+
+        assertTrue(page.getRequiredLink(IanaLinkRelations.SELF).getHref().endsWith("/search?q=clean%20code&page=1&limit=2"));
+        assertTrue(page.getRequiredLink(IanaLinkRelations.PREV).getHref().contains("page=0"));
+        assertTrue(page.getRequiredLink(IanaLinkRelations.NEXT).getHref().contains("page=2"));
+    }
+
+    @Test
+    void searchWithBlankQuery() {
+        assertThrows(RequiredObjectIsNullException.class, () -> service.search("  ", null, null));
+        verify(repository, never()).search(anyString(), anyLong(), anyInt());
+    }
+
+    @Test
+    void findAllById() {
+        when(repository.findAllById(List.of(2L, 9L, 1L))).thenReturn(List.of(input.mockEntity(1), input.mockEntity(2)));
+        var result = service.findAllById(List.of(2L, 9L, 1L));
+
+        List<BookDTO> books = List.copyOf(result.found().getContent());
+        assertEquals(List.of(2L, 1L), books.stream().map(BookDTO::getId).toList());
+        assertEquals(List.of(9L), result.missing());
+        assertEquals("Title Test2", books.getFirst().getTitle());
+        assertTrue(books.getFirst().getRequiredLink(IanaLinkRelations.SELF).getHref().endsWith("/api/book/v1/2"));
+    }
+
+    @Test
+    void findByIdConcurrently() throws Exception {
+        Book book = input.mockEntity(1);
+        var entered = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        when(repository.findById(1L)).thenAnswer(invocation -> {
+            entered.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.of(book);
+        });
+
+        List<Future<BookDTO>> results = new ArrayList<>();
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            results.add(executor.submit(() -> service.findById(1L)));
+            assertTrue(entered.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < 4; i++) results.add(executor.submit(() -> service.findById(1L)));
+            Thread.sleep(200);
+            release.countDown();
+        }
+
+        // one read for all of them, but each caller gets its own DTO to add links to
+        verify(repository, times(1)).findById(1L);
+        Set<BookDTO> distinct = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (var result : results) {
+            var dto = result.get();
+            assertEquals("Title Test1", dto.getTitle());
+            assertEquals(1, dto.getLinks().stream().filter(link -> link.getRel().value().equals("self")).count());
+            distinct.add(dto);
+        }
+        assertEquals(5, distinct.size());
+    }
+
+    @Test
+    void findByIdWhileUpdateReadsBack() throws Exception {
+        Book committed = input.mockEntity(1);
+        Book written = input.mockEntity(1);
+        written.setTitle("Title Updated");
+        written.setVersion(2L);
+        var entered = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        // the writer reads its row inside its still open transaction; a GET sees the committed one
+        when(repository.findRow(1L)).thenAnswer(invocation -> {
+            entered.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.of(written);
+        });
+        when(repository.findById(1L)).thenReturn(Optional.of(committed));
+        when(repository.update(any(Book.class), isNull())).thenReturn(1);
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            var update = executor.submit(() -> service.update(input.mockDTO(1), null, true));
+            assertTrue(entered.await(5, TimeUnit.SECONDS));
+            var read = executor.submit(() -> service.findById(1L));
+            Thread.sleep(200);
+            release.countDown();
+
+            // the GET loads on its own instead of being handed the uncommitted row
+            assertEquals("Title Test1", read.get().getTitle());
+            assertEquals("Title Updated", update.get().representation().getTitle());
+            assertEquals("\"2\"", update.get().stamp().eTag());
+        }
+        verify(repository, times(1)).findById(1L);
+    }
+
     @Test
     void findById() {
         Book book = input.mockEntity(1);
@@ -179,7 +318,7 @@ class BookServicesTest {
     void testUpdateWithNullBook() {
         Exception exception = assertThrows(RequiredObjectIsNullException.class,
                 () -> {
-                    service.update(null);
+                    service.update(null, null, true);
                 });
         String expectedMessage = "It is not allowed to persist a null object!";
         String actualMessage = exception.getMessage();
@@ -190,9 +329,9 @@ class BookServicesTest {
     void update() {
         BookDTO bookDTO = input.mockDTO(1);
         Book book = input.mockEntity(1);
-        when(repository.findById(1L)).thenReturn(Optional.of(book));
-        when(repository.save(book)).thenReturn(book);
-        var result = service.update(bookDTO);
+        when(repository.update(any(Book.class), isNull())).thenReturn(1);
+        when(repository.findRow(1L)).thenReturn(Optional.of(book));
+        var result = service.update(bookDTO, null, true).representation();
         assertNotNull(result);
         assertNotNull(result.getId());
         assertNotNull(result.getLinks());
@@ -228,12 +367,60 @@ class BookServicesTest {
         assertEquals("Title Test" + book.getId(), book.getTitle());
     }
 
+    @Test
+    void updateWithStaleIfMatch() {
+        when(repository.update(any(Book.class), eq(List.of(2L)))).thenReturn(0);
+        when(repository.existsById(1L)).thenReturn(true);
+        assertThrows(PreconditionFailedException.class, () -> service.update(input.mockDTO(1), "\"2\"", true));
+        verify(responseCache, never()).evict(anyString());
+    }
+
+    @Test
+    void importCsvInsertsInChunks() {
+        ReflectionTestUtils.setField(service, "bulkBatchSize", 2);
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        List<Integer> sizes = new ArrayList<>();
+        doAnswer(invocation -> sizes.add(invocation.<List<Book>>getArgument(0).size()))
+                .when(repository).insertAll(anyList());
+
+        var result = service.importCsv(input.mockDTOList().subList(0, 5).iterator());
+
+        assertEquals(5, result.getRows());
+        assertNull(result.getMessage());
+        assertEquals(List.of(2, 2, 1), sizes);
+    }
+
+    @Test
+    void importCsvStopsAtTheFailingChunk() {
+        ReflectionTestUtils.setField(service, "bulkBatchSize", 2);
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        doNothing().doThrow(new IllegalStateException("Column 'price' cannot be null"))
+                .when(repository).insertAll(anyList());
+
+        var result = service.importCsv(input.mockDTOList().subList(0, 5).iterator());
+
+        assertEquals(2, result.getRows());
+        assertTrue(result.getMessage().contains("price"));
+    }
+
     @Test
     void delete() {
-        Book book = input.mockEntity(1);
-        when(repository.findById(anyLong())).thenReturn(Optional.of(book));
-        service.deleteById(anyLong());
-        verify(repository, times(1)).delete(book);
+        when(repository.deleteRow(1L)).thenReturn(1);
+        service.deleteById(1L);
+        verify(repository, never()).findById(anyLong());
+        verify(responseCache, times(1)).evict("/api/book/v1/1");
+    }
+
+    @Test
+    void deleteMissing() {
+        when(repository.deleteRow(1L)).thenReturn(0);
+        assertThrows(ResourceNotFoundException.class, () -> service.deleteById(1L));
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,93 @@
+package br.com.daniel.services;
+
+import br.com.daniel.dedup.Document;
+import br.com.daniel.exception.ResourceNotFoundException;
+import br.com.daniel.repository.PersonRepository;
+import br.com.daniel.unittests.mapper.mocks.MockPerson;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DuplicateDetectionServicesTest {
+
+    MockPerson input;
+
+    @Mock
+    private PersonRepository repository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private DuplicateDetectionServices service;
+
+    @BeforeEach
+    void setUp() {
+        input = new MockPerson();
+        ReflectionTestUtils.setField(service, "hashes", 32);
+        ReflectionTestUtils.setField(service, "bands", 8);
+        ReflectionTestUtils.setField(service, "threshold", 0.7);
+        ReflectionTestUtils.setField(service, "maxBucket", 200);
+        ReflectionTestUtils.setField(service, "maxClusters", 1000);
+        ReflectionTestUtils.setField(service, "parallelism", 2);
+        ReflectionTestUtils.setField(service, "chunkSize", 2);
+    }
+
+    @Test
+    void run() {
+        when(repository.streamDocuments()).thenReturn(Stream.of(
+                new Document(1L, "Antony Lima Guarulhos - São Paulo - Brasil"),
+                new Document(2L, "Ayrton Senna São Paulo - Brasil"),
+                new Document(3L, "Antony Lima Guarulhos - São Paulo - Brasil")));
+        when(repository.findAllById(any())).thenReturn(List.of(input.mockEntity(1), input.mockEntity(3)));
+
+        service.run(Instant.now());
+
+        var report = service.latest();
+        assertEquals(DuplicateDetectionServices.DONE, report.getStatus());
+        assertNotNull(report.getFinishedAt());
+        assertEquals(3, report.getPeople());
+        assertEquals(1, report.getCandidatePairs());
+        assertEquals(1, report.getClusterCount());
+
+        var cluster = report.getClusters().getFirst();
+        assertEquals(1.0, cluster.getSimilarity());
+        assertEquals(List.of(1L, 3L), cluster.getPeople().stream().map(person -> person.getId()).toList());
+        assertTrue(cluster.getPeople().getFirst().getLinks().stream()
+                .anyMatch(link -> link.getRel().value().equals("self")
+                        && link.getHref().endsWith("/api/person/v1/1")));
+        verify(repository).findAllById(List.of(1L, 3L));
+    }
+
+    @Test
+    void runFailed() {
+        when(repository.streamDocuments()).thenThrow(new IllegalStateException("Connection refused"));
+
+        service.run(Instant.now());
+
+        var report = service.latest();
+        assertEquals(DuplicateDetectionServices.FAILED, report.getStatus());
+        assertEquals("Connection refused", report.getMessage());
+        assertNull(report.getClusters());
+    }
+
+    @Test
+    void latestBeforeAnyRun() {
+        Exception exception = assertThrows(ResourceNotFoundException.class, () -> service.latest());
+        assertEquals("No duplicate detection has run yet!", exception.getMessage());
+    }
+}
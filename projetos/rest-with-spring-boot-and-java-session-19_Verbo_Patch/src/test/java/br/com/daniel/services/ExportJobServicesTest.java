@@ -0,0 +1,208 @@
+package br.com.daniel.services;
+
+import br.com.daniel.data.dto.BookDTO;
+import br.com.daniel.data.dto.ExportJobDTO;
+import br.com.daniel.exception.ExportNotReadyException;
+import br.com.daniel.exception.ResourceNotFoundException;
+import br.com.daniel.exception.UnsupportedExportException;
+import br.com.daniel.serialization.streaming.StreamingWriterFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ExportJobServicesTest {
+
+    @TempDir
+    Path directory;
+
+    @Mock
+    private PersonServices personServices;
+
+    @Mock
+    private BookServices bookServices;
+
+    @Spy
+    private StreamingWriterFactory writers = new StreamingWriterFactory();
+
+    @InjectMocks
+    private ExportJobServices service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ReflectionTestUtils.setField(service, "directory", directory);
+        ReflectionTestUtils.setField(service, "concurrency", 1);
+        ReflectionTestUtils.setField(service, "ttl", Duration.ofHours(1));
+        ReflectionTestUtils.setField(service, "maxSize", DataSize.ofMegabytes(1));
+        service.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    private static BookDTO book(long id) {
+        var book = new BookDTO();
+        book.setId(id);
+        book.setAuthor("Author " + id);
+        book.setTitle("Title " + id);
+        book.setPrice(10D + id);
+        book.setLaunchDate(new Date(0));
+        return book;
+    }
+
+    private void exportBooks(int rows) {
+        when(bookServices.count()).thenReturn((long) rows);
+        when(bookServices.export(any())).thenAnswer(invocation -> {
+            Consumer<BookDTO> action = invocation.getArgument(0);
+            for (int i = 1; i <= rows; i++) action.accept(book(i));
+            return (long) rows;
+        });
+    }
+
+    private ExportJobDTO awaitFinished(String id) throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            var job = service.findById(id);
+            if (job.getStatus().equals("DONE") || job.getStatus().equals("FAILED")) return job;
+            Thread.sleep(10);
+        }
+        fail("Export " + id + " did not finish");
+        return null;
+    }
+
+    @Test
+    void startWritesTheFileInTheBackground() throws Exception {
+        exportBooks(3);
+
+        var started = service.start("book", "csv");
+        assertEquals("book", started.getDataset());
+        assertEquals("csv", started.getFormat());
+        assertTrue(started.getLink("self").isPresent());
+
+        var job = awaitFinished(started.getId());
+        assertEquals("DONE", job.getStatus());
+        assertEquals(3, job.getRows());
+        assertEquals(3, job.getTotal());
+        assertNotNull(job.getExpiresAt());
+        assertTrue(job.getRequiredLink("download").getHref().endsWith("/" + job.getId() + "/file"));
+
+        var file = service.download(job.getId()).getFile();
+        assertEquals(file.getFileName().toString(), "book-" + job.getId() + ".csv");
+        assertEquals(Files.size(file), job.getSize());
+        String csv = Files.readString(file);
+        assertTrue(csv.startsWith("id,author,launchDate,price,title\n1,Author 1,"));
+        assertEquals(4, csv.lines().count());
+    }
+
+    @Test
+    void startWhileTheSameExportIsPending() throws Exception {
+        var release = new CountDownLatch(1);
+        when(personServices.export(any())).thenAnswer(invocation -> {
+            release.await();
+            return 0L;
+        });
+
+        var job = service.start("person", "csv");
+        assertEquals(job.getId(), service.start("person", "csv").getId());
+        var other = service.start("person", "json");
+        assertNotEquals(job.getId(), other.getId());
+        release.countDown();
+        awaitFinished(job.getId());
+        awaitFinished(other.getId());
+
+        // finished: the next request starts a fresh export
+        assertNotEquals(job.getId(), service.start("person", "csv").getId());
+    }
+
+    @Test
+    void downloadBeforeTheJobIsDone() throws Exception {
+        var release = new CountDownLatch(1);
+        when(personServices.export(any())).thenAnswer(invocation -> {
+            release.await();
+            return 0L;
+        });
+
+        var job = service.start("person", "ndjson");
+        assertThrows(ExportNotReadyException.class, () -> service.download(job.getId()));
+        release.countDown();
+        var finished = awaitFinished(job.getId());
+        assertEquals("DONE", finished.getStatus(), finished.getMessage());
+        assertNotNull(service.download(job.getId()));
+    }
+
+    @Test
+    void failedExportLeavesNoFile() throws Exception {
+        when(bookServices.export(any())).thenThrow(new IllegalStateException("connection lost"));
+
+        var job = awaitFinished(service.start("book", "json").getId());
+        assertEquals("FAILED", job.getStatus());
+        assertEquals("connection lost", job.getMessage());
+        assertNull(job.getSize());
+        assertFalse(job.getLink("download").isPresent());
+        assertThrows(ExportNotReadyException.class, () -> service.download(job.getId()));
+        try (var files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void unsupportedDatasetOrFormat() {
+        assertThrows(UnsupportedExportException.class, () -> service.start("author", "csv"));
+        assertThrows(UnsupportedExportException.class, () -> service.start("book", "xlsx"));
+        verifyNoInteractions(bookServices, personServices);
+    }
+
+    @Test
+    void deleteRemovesTheFile() throws Exception {
+        exportBooks(1);
+        var job = awaitFinished(service.start("book", "xml").getId());
+        var file = service.download(job.getId()).getFile();
+        assertTrue(Files.exists(file));
+
+        service.delete(job.getId());
+        assertFalse(Files.exists(file));
+        assertThrows(ResourceNotFoundException.class, () -> service.findById(job.getId()));
+    }
+
+    @Test
+    void retentionDropsExpiredAndOversizedFiles() throws Exception {
+        exportBooks(2);
+        ReflectionTestUtils.setField(service, "maxSize", DataSize.ofBytes(1));
+        var older = awaitFinished(service.start("book", "json").getId());
+        var olderFile = service.download(older.getId()).getFile();
+
+        // the newest file stays even though it's over maxSize; the one before it makes room
+        var newer = awaitFinished(service.start("book", "yaml").getId());
+        service.purge();
+        assertThrows(ResourceNotFoundException.class, () -> service.findById(older.getId()));
+        assertFalse(Files.exists(olderFile));
+        var newerFile = service.download(newer.getId()).getFile();
+        assertTrue(Files.exists(newerFile));
+
+        ReflectionTestUtils.setField(service, "ttl", Duration.ZERO);
+        Thread.sleep(5);
+        service.purge();
+        assertThrows(ResourceNotFoundException.class, () -> service.findById(newer.getId()));
+        assertFalse(Files.exists(newerFile));
+    }
+}
@@ -1,21 +1,39 @@
 package br.com.daniel.services;
 
+import br.com.daniel.autocomplete.PersonNameIndex;
+import br.com.daniel.cache.AfterCommit;
+import br.com.daniel.cache.ResponseCache;
+import br.com.daniel.data.dto.NameSuggestionDTO;
 import br.com.daniel.data.dto.PersonDTO;
+import br.com.daniel.exception.LimitExceededException;
+import br.com.daniel.exception.PreconditionFailedException;
 import br.com.daniel.exception.RequiredObjectIsNullException;
+import br.com.daniel.exception.ResourceNotFoundException;
 import br.com.daniel.model.Person;
 import br.com.daniel.repository.PersonRepository;
+import br.com.daniel.serialization.patch.JsonPatches;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import br.com.daniel.unittests.mapper.mocks.MockPerson;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.IanaLinkRelations;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.LongStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -29,6 +47,21 @@ class PersonServicesTest {
     @Mock
     private PersonRepository repository;
 
+    @Mock
+    private ResponseCache responseCache;
+
+    @Spy
+    private AfterCommit afterCommit = new AfterCommit(Duration.ZERO);
+
+    @Mock(answer = Answers.RETURNS_DEEP_STUBS)
+    private EntityManager entityManager;
+
+    @Spy
+    private JsonPatches patches = new JsonPatches();
+
+    @Mock
+    private PersonNameIndex names;
+
     @InjectMocks
     private PersonServices service;
 
@@ -41,11 +74,17 @@ class PersonServicesTest {
     @Test
     void findAll() {
         List<Person> list = input.mockEntityList();
-        when(repository.findAll()).thenReturn(list);
-        List<PersonDTO> people = service.findAll();
-        assertNotNull(people);
+        when(repository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(14))).thenReturn(list);
+        CollectionModel<PersonDTO> page = service.findAll(null, null, 14, stamp -> false);
+        assertNotNull(page);
+        List<PersonDTO> people = List.copyOf(page.getContent());
         assertEquals(14, people.size());
 
+        assertTrue(page.getLink(IanaLinkRelations.SELF).isPresent());
+        assertTrue(page.getLink(IanaLinkRelations.NEXT).orElseThrow().getHref().contains("after=13"));
+        assertEquals("POST", page.getRequiredLink("create").getType());
+        assertEquals("PUT", page.getRequiredLink("update").getType());
+
         people.forEach(person -> {
             assertNotNull(person.getId());
             assertNotNull(person.getLinks());
@@ -56,17 +95,9 @@ class PersonServicesTest {
                             && link.getType().equals("GET")
                     ));
 
-            assertNotNull(person.getLinks().stream()
-                    .anyMatch(link -> link.getRel().value().equals("create")
-                            && link.getHref().endsWith("/api/person/v1")
-                            && link.getType().equals("POST")
-                    ));
-
-            assertNotNull(person.getLinks().stream()
-                    .anyMatch(link -> link.getRel().value().equals("update")
-                            && link.getHref().endsWith("/api/person/v1")
-                            && link.getType().equals("PUT")
-                    ));
+            // collection-scoped links live on the wrapper only
+            assertTrue(person.getLink("create").isEmpty());
+            assertTrue(person.getLink("findAll").isEmpty());
 
             assertNotNull(person.getLinks().stream()
                     .anyMatch(link -> link.getRel().value().equals("delete")
@@ -84,6 +115,79 @@ class PersonServicesTest {
 
     }
 
+    @Test
+    void findAllById() {
+        // repeated ids are asked for once; the query answers in its own order
+        when(repository.findAllById(List.of(3L, 1L, 7L, 2L)))
+                .thenReturn(List.of(input.mockEntity(1), input.mockEntity(2), input.mockEntity(3)));
+        var result = service.findAllById(List.of(3L, 1L, 7L, 3L, 2L));
+
+        List<PersonDTO> people = List.copyOf(result.found().getContent());
+        assertEquals(List.of(3L, 1L, 2L), people.stream().map(PersonDTO::getId).toList());
+        assertEquals(List.of(7L), result.missing());
+        assertTrue(result.found().getRequiredLink(IanaLinkRelations.SELF).getHref().endsWith("/api/person/v1?ids=3,1,7,2"));
+        assertTrue(people.getFirst().getRequiredLink(IanaLinkRelations.SELF).getHref().endsWith("/api/person/v1/3"));
+    }
+
+    @Test
+    void findAllByIdWithTooManyIds() {
+        var ids = LongStream.rangeClosed(1, 101).boxed().toList();
+        Exception exception = assertThrows(LimitExceededException.class, () -> service.findAllById(ids));
+        assertEquals("At most 100 IDs (ids) per request!", exception.getMessage());
+        assertThrows(RequiredObjectIsNullException.class, () -> service.findAllById(List.of()));
+        verify(repository, never()).findAllById(any());
+    }
+
+    @Test
+    void findAllBefore() {
+        List<Person> list = input.mockEntityList().reversed();
+        when(repository.findByIdLessThanOrderByIdDesc(20L, Limit.of(14))).thenReturn(list);
+        CollectionModel<PersonDTO> links = service.findAll(null, 20L, 14, stamp -> false);
+        List<PersonDTO> people = List.copyOf(links.getContent());
+        assertEquals(14, people.size());
+        assertEquals(0L, people.getFirst().getId());
+        assertEquals(13L, people.getLast().getId());
+
+        assertTrue(links.getLink(IanaLinkRelations.FIRST).isPresent());
+        assertTrue(links.getLink(IanaLinkRelations.PREV).orElseThrow().getHref().contains("before=0"));
+        assertTrue(links.getLink(IanaLinkRelations.NEXT).orElseThrow().getHref().contains("after=13"));
+    }
+
+    @Test
+    void pageLinksOnFirstPage() {
+        List<Person> people = input.mockEntityList();
+        when(repository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(14))).thenReturn(people);
+        CollectionModel<PersonDTO> links = service.findAll(null, null, 14, stamp -> false);
+        assertTrue(links.getLink(IanaLinkRelations.PREV).isEmpty());
+        assertTrue(links.getLink(IanaLinkRelations.NEXT).orElseThrow().getHref().contains("after=13"));
+
+        when(repository.findByIdGreaterThanOrderByIdAsc(30L, Limit.of(14))).thenReturn(people.subList(0, 5));
+        CollectionModel<PersonDTO> lastPage = service.findAll(30L, null, 14, stamp -> false);
+        assertTrue(lastPage.getLink(IanaLinkRelations.PREV).orElseThrow().getHref().contains("before=0"));
+        assertTrue(lastPage.getLink(IanaLinkRelations.NEXT).isEmpty());
+    }
+
+    @Test
+    void findByIdNotModified() {
+        Person person = input.mockEntity(1);
+        person.setVersion(3L);
+        when(repository.findById(1L)).thenReturn(Optional.of(person));
+        // the validators checked are those of the row that would have been mapped
+        assertNull(service.findById(1L, stamp -> stamp.eTag().equals("\"3\"")));
+        assertNotNull(service.findById(1L, stamp -> stamp.eTag().equals("\"2\"")));
+        verify(repository, times(2)).findById(1L);
+    }
+
+    @Test
+    void findAllNotModifiedSkipsThePage() {
+        when(repository.count()).thenReturn(14L);
+        assertNull(service.findAll(null, null, 14, stamp -> true));
+        assertNull(service.findAll(null, null, 14, stamp -> true));
+        verify(repository, never()).findByIdGreaterThanOrderByIdAsc(any(), any());
+        // the collection's validators don't cost a COUNT(*) per request
+        verify(repository, times(1)).count();
+    }
+
     @Test
     void findById() {
         Person person = input.mockEntity(1);
@@ -181,7 +285,7 @@ class PersonServicesTest {
     void testUpdateWithNullPerson() {
         Exception exception = assertThrows(RequiredObjectIsNullException.class,
                 () -> {
-                    service.update(null);
+                    service.update(null, null, true);
                 });
         String expectedMessage = "It is not allowed to persist a null object!";
         String actualMessage = exception.getMessage();
@@ -192,9 +296,9 @@ class PersonServicesTest {
     void update() {
         PersonDTO personDTO = input.mockDTO(1);
         Person person = input.mockEntity(1);
-        when(repository.findById(1L)).thenReturn(Optional.of(person));
-        when(repository.save(person)).thenReturn(person);
-        var result = service.update(personDTO);
+        when(repository.update(any(Person.class), isNull())).thenReturn(1);
+        when(repository.findRow(1L)).thenReturn(Optional.of(person));
+        var result = service.update(personDTO, null, true).representation();
         assertNotNull(result);
         assertNotNull(result.getId());
         assertNotNull(result.getLinks());
@@ -231,11 +335,113 @@ class PersonServicesTest {
     }
 
     @Test
-    void delete() {
+    void updateWithoutRepresentation() {
+        when(repository.update(any(Person.class), isNull())).thenReturn(1);
         Person person = input.mockEntity(1);
-        when(repository.findById(anyLong())).thenReturn(Optional.of(person));
-        service.delete(anyLong());
-        verify(repository, times(1)).delete(person);
+        person.setVersion(5L);
+        when(repository.findRow(1L)).thenReturn(Optional.of(person));
+        var result = service.update(input.mockDTO(1), null, false);
+        // the validators of what was written, without a representation
+        assertNull(result.representation());
+        assertEquals("\"5\"", result.stamp().eTag());
+        verify(responseCache, times(1)).evict("/api/person/v1/1");
+    }
+
+    @Test
+    void updateWithStaleIfMatch() {
+        when(repository.update(any(Person.class), eq(List.of(2L)))).thenReturn(0);
+        when(repository.existsById(1L)).thenReturn(true);
+        assertThrows(PreconditionFailedException.class, () -> service.update(input.mockDTO(1), "\"2\"", true));
+        verify(responseCache, never()).evict(anyString());
+    }
+
+    @Test
+    void updateMissing() {
+        when(repository.update(any(Person.class), isNull())).thenReturn(0);
+        assertThrows(ResourceNotFoundException.class, () -> service.update(input.mockDTO(1), null, true));
+        verify(repository, never()).existsById(anyLong());
+    }
+
+    @Test
+    void disabledPerson() {
+        Person person = input.mockEntity(1);
+        person.setEnabled(false);
+        when(repository.disable(1L, List.of(3L))).thenReturn(1);
+        when(repository.findRow(1L)).thenReturn(Optional.of(person));
+        var result = service.disabledPerson(1L, "\"3\"", true).representation();
+        assertEquals(1L, result.getId());
+        verify(responseCache, times(1)).evict("/api/person/v1/1");
+        verify(names).remove(1L);
+    }
+
+    @Test
+    void disabledPersonAlreadyDisabled() {
+        Person person = input.mockEntity(1);
+        person.setEnabled(false);
+        when(repository.disable(1L, null)).thenReturn(0);
+        when(repository.findById(1L)).thenReturn(Optional.of(person));
+        var result = service.disabledPerson(1L, null, true).representation();
+        assertFalse(result.getEnabled());
+        verify(responseCache, never()).evict(anyString());
+    }
+
+    @Test
+    void disabledPersonLosingTheRace() {
+        Person person = input.mockEntity(1);
+        person.setEnabled(true);
+        person.setVersion(4L);
+        when(repository.disable(1L, List.of(3L))).thenReturn(0);
+        when(repository.findById(1L)).thenReturn(Optional.of(person));
+        assertThrows(PreconditionFailedException.class, () -> service.disabledPerson(1L, "\"3\"", true));
+        verify(responseCache, never()).evict(anyString());
+    }
+
+    @Test
+    void patchWritesOnlyChangedColumns() throws Exception {
+        Person person = input.mockEntity(1);
+        person.setVersion(3L);
+        when(repository.findById(1L)).thenReturn(Optional.of(person));
+        when(repository.findRow(1L)).thenReturn(Optional.of(person));
+        when(repository.patch(1L, Map.of("address", "New Address"), 3L)).thenReturn(1);
+        var patch = new ObjectMapper().readTree("{\"address\": \"New Address\", \"gender\": \"Female\"}");
+        assertNull(service.patch(1L, patch, JsonPatches.MERGE_PATCH_JSON_VALUE, "\"3\"", false).representation());
+        verify(responseCache, times(1)).evict("/api/person/v1/1");
+        verify(names).put(1L, person.getFirstName(), person.getLastName(), person.getEnabled());
+    }
+
+    @Test
+    void patchWithoutChangesSkipsTheWrite() throws Exception {
+        when(repository.findById(1L)).thenReturn(Optional.of(input.mockEntity(1)));
+        var patch = new ObjectMapper().readTree("[{\"op\": \"replace\", \"path\": \"/gender\", \"value\": \"Female\"}]");
+        var result = service.patch(1L, patch, JsonPatches.JSON_PATCH_JSON_VALUE, null, true).representation();
+        assertEquals("Female", result.getGender());
+        verify(repository, never()).patch(anyLong(), any(), any());
+        verify(responseCache, never()).evict(anyString());
+    }
+
+    @Test
+    void autocompleteClampsTheLimit() {
+        var match = List.of(new NameSuggestionDTO(1L, "Ayrton", "Senna"));
+        when(names.suggest("ay", 50)).thenReturn(match);
+        assertEquals(match, service.autocomplete("ay", 1000));
+        service.autocomplete("ay", null);
+        verify(names).suggest("ay", 10);
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void delete() {
+        when(repository.deleteRow(1L)).thenReturn(1);
+        service.delete(1L);
+        verify(repository, never()).findById(anyLong());
+        verify(responseCache, times(1)).evict("/api/person/v1/1");
+        verify(names).remove(1L);
+    }
+
+    @Test
+    void deleteMissing() {
+        when(repository.deleteRow(1L)).thenReturn(0);
+        assertThrows(ResourceNotFoundException.class, () -> service.delete(1L));
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,106 @@
+package br.com.daniel.unittests.autocomplete;
+
+import br.com.daniel.autocomplete.PersonNameIndex;
+import br.com.daniel.data.dto.NameSuggestionDTO;
+import br.com.daniel.repository.PersonRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class PersonNameIndexTests {
+
+    PersonNameIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        PersonRepository repository = mock(PersonRepository.class);
+        when(repository.streamNames()).thenReturn(Stream.of(
+                new NameSuggestionDTO(1L, "Ayrton", "Senna"),
+                new NameSuggestionDTO(2L, "Leonardo", "da Vinci"),
+                new NameSuggestionDTO(3L, "José", "Ávila"),
+                new NameSuggestionDTO(4L, "Mahatma", "Gandhi"),
+                new NameSuggestionDTO(5L, "Shaun", "O'Neill")));
+        index = new PersonNameIndex();
+        ReflectionTestUtils.setField(index, "repository", repository);
+        ReflectionTestUtils.setField(index, "transactionManager", mock(PlatformTransactionManager.class));
+        index.afterSingletonsInstantiated();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private List<Long> ids(String prefix) {
+        return index.suggest(prefix, 10).stream().map(NameSuggestionDTO::getId).toList();
+    }
+
+    @Test
+    public void prefixOfEitherNameTest() {
+        assertEquals(5, index.size());
+        assertEquals(List.of(1L), ids("ay"));
+        assertEquals(List.of(1L), ids("sen"));
+        assertEquals(List.of(1L), ids("ayrton se"));
+        assertEquals(List.of(1L), ids("senna a"));
+        assertEquals(List.of(2L), ids("da v"));
+        assertEquals(List.of(), ids("x"));
+        assertEquals(List.of(), ids("  "));
+    }
+
+    @Test
+    public void foldsCaseAccentsAndPunctuationTest() {
+        assertEquals(List.of(3L), ids("JOSE"));
+        assertEquals(List.of(3L), ids("avila"));
+        assertEquals(List.of(3L), ids("Ávi"));
+        assertEquals(List.of(5L), ids("oneil"));
+        assertEquals("jose avila", PersonNameIndex.normalize("  José   Ávila "));
+    }
+
+    @Test
+    public void eachPersonOnceAndAtMostLimitTest() {
+        index.put(6L, "Anna", "Annan", true);
+        index.put(7L, "Annabel", "Lee", true);
+        assertEquals(List.of(6L, 7L), ids("ann"));
+        assertEquals(1, index.suggest("ann", 1).size());
+    }
+
+    @Test
+    public void writesKeepTheIndexCurrentTest() {
+        index.rename(1L, "Alain", "Prost");
+        assertEquals(List.of(), ids("senna"));
+        assertEquals(List.of(1L), ids("prost"));
+
+        index.put(4L, "Mahatma", "Gandhi", false);
+        assertEquals(List.of(), ids("gandhi"));
+        // renaming someone disabled doesn't bring them back
+        index.rename(4L, "Mohandas", "Gandhi");
+        assertEquals(List.of(), ids("gandhi"));
+
+        index.remove(2L);
+        assertEquals(List.of(), ids("leo"));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    public void onlyCommittedWritesTest() {
+        TransactionSynchronizationManager.initSynchronization();
+        index.put(8L, "Nikola", "Tesla", true);
+        assertEquals(List.of(), ids("tesla"));
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+        assertEquals(List.of(8L), ids("tesla"));
+    }
+}
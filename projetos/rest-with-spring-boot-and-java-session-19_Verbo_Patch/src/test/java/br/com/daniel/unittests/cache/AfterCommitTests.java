@@ -0,0 +1,52 @@
+package br.com.daniel.unittests.cache;
+
+import br.com.daniel.cache.AfterCommit;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AfterCommitTests {
+
+    @Test
+    public void evictsAgainOnceTheReplicasCaughtUpTest() throws Exception {
+        var runs = new CountDownLatch(2);
+        try (var afterCommit = new AfterCommit(Duration.ofMillis(20))) {
+            afterCommit.evict(runs::countDown);
+            assertTrue(runs.await(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void evictsAgainOnRollbackTest() {
+        var runs = new AtomicInteger();
+        TransactionSynchronizationManager.initSynchronization();
+        try (var afterCommit = new AfterCommit(Duration.ZERO)) {
+            afterCommit.evict(runs::incrementAndGet);
+            TransactionSynchronizationUtils.invokeAfterCompletion(TransactionSynchronizationManager.getSynchronizations(),
+                    TransactionSynchronization.STATUS_ROLLED_BACK);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    public void closedWithTheContextTest() throws Exception {
+        var runs = new AtomicInteger();
+        var afterCommit = new AfterCommit(Duration.ofMillis(50));
+        afterCommit.evict(runs::incrementAndGet);
+        afterCommit.close();
+        afterCommit.evict(runs::incrementAndGet);
+        Thread.sleep(150);
+        // only the immediate runs: the pending and later re-evictions went with the scheduler
+        assertEquals(2, runs.get());
+    }
+}
@@ -0,0 +1,41 @@
+package br.com.daniel.unittests.cache;
+
+import br.com.daniel.cache.CachedCount;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CachedCountTests {
+
+    @Test
+    public void servesTheLoadedCountUntilInvalidatedTest() {
+        var count = new CachedCount(Duration.ofMinutes(1));
+        var rows = new AtomicLong(5);
+        assertEquals(5, count.get(rows::get));
+
+        rows.set(6);
+        assertEquals(5, count.get(rows::get));
+
+        count.invalidate();
+        assertEquals(6, count.get(rows::get));
+    }
+
+    @Test
+    public void loadOverlappingAnInvalidateIsNotKeptTest() {
+        var count = new CachedCount(Duration.ofMinutes(1));
+        var rows = new AtomicLong(5);
+
+        // the write commits and invalidates while the old count is being read
+        assertEquals(5, count.get(() -> {
+            long old = rows.get();
+            rows.set(6);
+            count.invalidate();
+            return old;
+        }));
+
+        assertEquals(6, count.get(rows::get));
+    }
+}
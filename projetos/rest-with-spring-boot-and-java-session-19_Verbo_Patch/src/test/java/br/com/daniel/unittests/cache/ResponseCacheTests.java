@@ -0,0 +1,147 @@
+package br.com.daniel.unittests.cache;
+
+import br.com.daniel.cache.AfterCommit;
+import br.com.daniel.cache.ResponseCache;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResponseCacheTests {
+
+    private static final String BASE_URI = "http://localhost";
+
+    private final AfterCommit afterCommit = new AfterCommit(Duration.ZERO);
+
+    private static MockHttpServletRequest request(String uri, String accept) {
+        var request = new MockHttpServletRequest("GET", uri);
+        request.addHeader(HttpHeaders.ACCEPT, accept);
+        request.setAttribute(HandlerMapping.PRODUCIBLE_MEDIA_TYPES_ATTRIBUTE, new LinkedHashSet<>(List.of(
+                MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MediaType.APPLICATION_YAML)));
+        return request;
+    }
+
+    @Test
+    public void storesOneEntryPerVariantTest() throws Exception {
+        var cache = new ResponseCache(true, 10, true, BASE_URI, afterCommit);
+        var json = cache.key(request("/api/person/v1/1", "application/json"));
+        var xml = cache.key(request("/api/person/v1/1", "application/xml"));
+        cache.put(json, "application/hal+json", null, -1, "{\"id\":1}".getBytes(StandardCharsets.UTF_8));
+        cache.put(xml, "application/xml", null, -1, "<PersonDTO/>".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals("application/xml", cache.get(xml).contentType());
+
+        // replayed twice from the same off-heap buffer
+        for (int i = 0; i < 2; i++) {
+            var response = new MockHttpServletResponse();
+            cache.get(json).writeTo(response);
+            assertEquals("{\"id\":1}", response.getContentAsString());
+            assertEquals(8, response.getContentLength());
+        }
+    }
+
+    @Test
+    public void keysOnTheNegotiatedTypeTest() {
+        var cache = new ResponseCache(true, 10, false, BASE_URI, afterCommit);
+        var json = cache.key(request("/api/person/v1/1", "application/json"));
+        cache.put(json, "application/json", null, -1, new byte[]{1});
+
+        // any Accept that negotiates JSON shares the entry
+        assertNotNull(cache.get(cache.key(request("/api/person/v1/1", "*/*"))));
+        assertNotNull(cache.get(cache.key(request("/api/person/v1/1", "application/xml;q=0.1, application/*;q=0.9"))));
+        assertNotEquals(json, cache.key(request("/api/person/v1/1", "application/json;profile=lean")));
+
+        // nothing producible, another host, another scheme: not cacheable at all
+        assertNull(cache.key(request("/api/person/v1/1", "text/csv")));
+        var otherHost = request("/api/person/v1/1", "application/json");
+        otherHost.setServerName("attacker.example");
+        assertNull(cache.key(otherHost));
+        var otherScheme = request("/api/person/v1/1", "application/json");
+        otherScheme.setScheme("https");
+        assertNull(cache.key(otherScheme));
+
+        // an answer in another type than negotiated isn't stored
+        var xml = cache.key(request("/api/person/v1/2", "application/xml"));
+        cache.put(xml, "application/json", null, -1, new byte[]{1});
+        assertNull(cache.get(xml));
+    }
+
+    @Test
+    public void evictDropsEveryVariantAndStaleWritesTest() {
+        var cache = new ResponseCache(true, 10, false, BASE_URI, afterCommit);
+        var before = cache.key(request("/api/book/v1/3", "application/json"));
+        cache.put(before, "application/json", null, -1, new byte[]{1});
+        var other = cache.key(request("/api/book/v1/4", "application/json"));
+        cache.evict("/api/book/v1/3");
+        assertNull(cache.get(before));
+
+        // rendered before the eviction: must not be stored
+        cache.put(before, "application/json", null, -1, new byte[]{1});
+        assertNull(cache.get(before));
+
+        // in flight for another resource: the eviction doesn't concern it
+        cache.put(other, "application/json", null, -1, new byte[]{4});
+        assertNotNull(cache.get(other));
+
+        var after = cache.key(request("/api/book/v1/3", "application/json"));
+        cache.put(after, "application/json", null, -1, new byte[]{2});
+        assertNotNull(cache.get(after));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedTest() {
+        var cache = new ResponseCache(true, 2, false, BASE_URI, afterCommit);
+        var one = cache.key(request("/api/book/v1/1", "application/json"));
+        cache.put(one, "application/json", null, -1, new byte[]{1});
+        var two = cache.key(request("/api/book/v1/2", "application/json"));
+        cache.put(two, "application/json", null, -1, new byte[]{2});
+        cache.get(one);
+        var three = cache.key(request("/api/book/v1/3", "application/json"));
+        cache.put(three, "application/json", null, -1, new byte[]{3});
+
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get(one));
+        assertNull(cache.get(two));
+        assertNotNull(cache.get(three));
+    }
+
+    @Test
+    public void missesDontPushOutStoredBodiesTest() {
+        var cache = new ResponseCache(true, 2, false, BASE_URI, afterCommit);
+        var one = cache.key(request("/api/book/v1/1", "application/json"));
+        cache.put(one, "application/json", null, -1, new byte[]{1});
+
+        // a scan over ids that answer 404: keyed and looked up, never stored
+        for (int id = 100; id < 200; id++) {
+            assertNull(cache.get(cache.key(request("/api/book/v1/" + id, "application/json"))));
+        }
+        assertEquals(1, cache.size());
+        assertNotNull(cache.get(one));
+    }
+
+    @Test
+    public void forgottenWritesStillRejectOlderResponsesTest() {
+        var cache = new ResponseCache(true, 2, false, BASE_URI, afterCommit);
+        var before = cache.key(request("/api/book/v1/1", "application/json"));
+        cache.evict("/api/book/v1/1");
+        cache.evict("/api/book/v1/2");
+        cache.evict("/api/book/v1/3");
+
+        // the write on 1 fell out of the bounded log: a response keyed before it is still not stored
+        cache.put(before, "application/json", null, -1, new byte[]{1});
+        assertNull(cache.get(before));
+
+        var after = cache.key(request("/api/book/v1/1", "application/json"));
+        cache.put(after, "application/json", null, -1, new byte[]{2});
+        assertNotNull(cache.get(after));
+    }
+}
@@ -0,0 +1,127 @@
+package br.com.daniel.unittests.cache;
+
+import br.com.daniel.cache.SingleFlight;
+import br.com.daniel.exception.ResourceNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SingleFlightTests {
+
+    SimpleMeterRegistry registry;
+    AtomicInteger loads;
+    CountDownLatch started;
+    CountDownLatch release;
+
+    @BeforeEach
+    public void setUp() {
+        registry = new SimpleMeterRegistry();
+        loads = new AtomicInteger();
+        started = new CountDownLatch(1);
+        release = new CountDownLatch(1);
+    }
+
+    private double calls(String role) {
+        return registry.get("singleflight.calls").tag("name", "test").tag("role", role).functionCounter().count();
+    }
+
+    // the first load blocks until released, so callers started meanwhile find it in flight
+    private <V> Supplier<V> blocking(Supplier<V> result) {
+        return () -> {
+            loads.incrementAndGet();
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return result.get();
+        };
+    }
+
+    private <V> List<Future<V>> concurrently(int callers, Supplier<V> call) throws Exception {
+        List<Future<V>> results = new ArrayList<>();
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            results.add(executor.submit(call::get));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            for (int i = 1; i < callers; i++) results.add(executor.submit(call::get));
+            Thread.sleep(200);
+            release.countDown();
+        }
+        return results;
+    }
+
+    @Test
+    public void concurrentCallersShareOneLoadTest() throws Exception {
+        var flight = new SingleFlight<Long, String>("test", Duration.ofSeconds(5), registry);
+        var loader = this.<String>blocking(() -> "book 1");
+
+        var results = concurrently(10, () -> flight.load(1L, loader));
+
+        for (var result : results) assertEquals("book 1", result.get());
+        assertEquals(1, loads.get());
+        assertEquals(1, calls("leader"));
+        assertEquals(9, calls("coalesced"));
+        assertEquals(0.9, flight.coalescingRatio(), 0.001);
+
+        // nothing in flight any more: the next call loads again
+        assertEquals("book 1", flight.load(1L, () -> "book 1"));
+        assertEquals(2, calls("leader"));
+    }
+
+    @Test
+    public void exceptionIsSharedTest() throws Exception {
+        var flight = new SingleFlight<Long, String>("test", Duration.ofSeconds(5), registry);
+        Supplier<String> loader = blocking(() -> {
+            throw new ResourceNotFoundException("No records found for this ID!");
+        });
+
+        var results = concurrently(3, () -> flight.load(1L, loader));
+
+        for (var result : results) {
+            var exception = assertThrows(Exception.class, result::get);
+            assertInstanceOf(ResourceNotFoundException.class, exception.getCause());
+        }
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void waitIsBoundedTest() throws Exception {
+        var flight = new SingleFlight<Long, String>("test", Duration.ofMillis(50), registry);
+        var loader = this.<String>blocking(() -> "book 1");
+
+        var results = concurrently(2, () -> flight.load(1L, loader));
+
+        for (var result : results) assertEquals("book 1", result.get());
+        // the second caller gave up waiting and ran the loader itself
+        assertEquals(2, loads.get());
+        assertEquals(1, calls("timeout"));
+    }
+
+    @Test
+    public void forgottenLoadIsNotJoinedTest() throws Exception {
+        var flight = new SingleFlight<Long, String>("test", Duration.ofSeconds(5), registry);
+        List<Future<String>> results = new ArrayList<>();
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            results.add(executor.submit(() -> flight.load(1L, blocking(() -> "old"))));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            flight.forget(1L);
+            assertEquals("new", flight.load(1L, () -> "new"));
+            release.countDown();
+        }
+        assertEquals("old", results.getFirst().get());
+        assertEquals(2, calls("leader"));
+    }
+}
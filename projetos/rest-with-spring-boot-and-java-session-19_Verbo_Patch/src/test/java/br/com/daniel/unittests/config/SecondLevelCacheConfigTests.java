@@ -0,0 +1,55 @@
+package br.com.daniel.unittests.config;
+
+import br.com.daniel.config.SecondLevelCacheConfig;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.cache.CacheManager;
+import java.time.Duration;
+import java.util.HashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SecondLevelCacheConfigTests {
+
+    private static CacheManager cacheManager(SecondLevelCacheConfig config) {
+        ReflectionTestUtils.setField(config, "personSize", 2L);
+        ReflectionTestUtils.setField(config, "personTtl", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(config, "bookSize", 2L);
+        ReflectionTestUtils.setField(config, "bookTtl", Duration.ofMinutes(1));
+        return ReflectionTestUtils.invokeMethod(config, "secondLevelCacheManager");
+    }
+
+    @Test
+    public void createsBoundedEntityRegionsTest() {
+        var config = new SecondLevelCacheConfig();
+        try (CacheManager cacheManager = cacheManager(config)) {
+            var person = cacheManager.getCache(SecondLevelCacheConfig.PERSON_REGION);
+            assertNotNull(person);
+            assertNotNull(cacheManager.getCache(SecondLevelCacheConfig.BOOK_REGION));
+
+            for (long id = 1; id <= 10; id++) person.put(id, "person " + id);
+            long cached = 0;
+            for (var ignored : person) cached++;
+            assertTrue(cached <= 2, "the heap tier must honour the configured size");
+
+            var properties = new HashMap<String, Object>();
+            HibernatePropertiesCustomizer customizer =
+                    ReflectionTestUtils.invokeMethod(config, "secondLevelCacheCustomizer", cacheManager);
+            customizer.customize(properties);
+            assertSame(cacheManager, properties.get(ConfigSettings.CACHE_MANAGER));
+        }
+    }
+
+    @Test
+    public void eachContextGetsItsOwnManagerTest() {
+        try (CacheManager first = cacheManager(new SecondLevelCacheConfig());
+             CacheManager second = cacheManager(new SecondLevelCacheConfig())) {
+            assertNotSame(first, second);
+            first.getCache(SecondLevelCacheConfig.PERSON_REGION).put(1L, "first");
+            assertNull(second.getCache(SecondLevelCacheConfig.PERSON_REGION).get(1L));
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package br.com.daniel.unittests.data;
+
+import br.com.daniel.data.ResourceStamp;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResourceStampTests {
+
+    @Test
+    public void entityStampTest() {
+        var stamp = ResourceStamp.of(4L, Instant.ofEpochMilli(1700000000123L));
+        assertEquals("\"4\"", stamp.eTag());
+        assertEquals(1700000000123L, stamp.lastModified());
+        assertEquals("\"0\"", ResourceStamp.of(null, null).eTag());
+        assertEquals(-1, ResourceStamp.of(null, null).lastModified());
+    }
+
+    @Test
+    public void collectionStampChangesWithCountAndLastUpdateTest() {
+        var lastUpdate = Instant.ofEpochMilli(1700000000000L);
+        var stamp = ResourceStamp.ofCollection(12, lastUpdate);
+        assertEquals("\"12-1700000000000\"", stamp.eTag());
+        assertEquals(-1, stamp.lastModified());
+        assertNotEquals(stamp, ResourceStamp.ofCollection(11, lastUpdate));
+        assertNotEquals(stamp, ResourceStamp.ofCollection(12, lastUpdate.plusMillis(1)));
+    }
+
+    @Test
+    public void ifMatchUsesStrongComparisonTest() {
+        var stamp = ResourceStamp.of(4L, null);
+        assertTrue(stamp.matches(null));
+        assertTrue(stamp.matches("*"));
+        assertTrue(stamp.matches("\"4\""));
+        assertTrue(stamp.matches("\"3\", \"4\""));
+        assertFalse(stamp.matches("\"3\""));
+        assertFalse(stamp.matches("W/\"4\""));
+    }
+
+    @Test
+    public void eachRepresentationHasItsOwnTagTest() {
+        var stamp = ResourceStamp.of(4L, null);
+        var json = stamp.forRepresentation("json");
+        assertEquals("\"4-json\"", json.eTag());
+        assertEquals("\"4-xml-lean\"", stamp.forRepresentation("xml-lean").eTag());
+        assertEquals("\"12-1700000000000-json\"", ResourceStamp.ofCollection(12, Instant.ofEpochMilli(1700000000000L))
+                .forRepresentation("json").eTag());
+
+        // the tag of any representation names the version a write expects
+        assertTrue(json.matches("\"4-yaml\""));
+        assertTrue(json.matches("\"4\""));
+        assertFalse(json.matches("\"3-json\""));
+        assertEquals(List.of(4L, 3L), ResourceStamp.versions("\"4-json\", \"3-xml-lean\""));
+    }
+
+    @Test
+    public void ifMatchToVersionsTest() {
+        assertNull(ResourceStamp.versions(null));
+        assertNull(ResourceStamp.versions("\"3\", *"));
+        assertEquals(List.of(3L, 4L), ResourceStamp.versions("\"3\", \"4\""));
+        assertEquals(List.of(), ResourceStamp.versions("W/\"4\", \"12-1700000000000\", \"12-1700000000000-json\""));
+    }
+}
@@ -0,0 +1,82 @@
+package br.com.daniel.unittests.datasource;
+
+import br.com.daniel.datasource.BorrowTrackingDataSource;
+import br.com.daniel.datasource.ConnectionBorrowFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ConnectionBorrowTests {
+
+    DataSource pool;
+    DataSource dataSource;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        pool = mock(DataSource.class);
+        when(pool.getConnection()).thenReturn(mock(Connection.class));
+        var proxy = new LazyConnectionDataSourceProxy(new BorrowTrackingDataSource(pool));
+        proxy.setDefaultAutoCommit(true);
+        proxy.setDefaultTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+        dataSource = proxy;
+    }
+
+    @Test
+    public void transactionWithoutStatementsDoesntBorrowTest() throws Exception {
+        BorrowTrackingDataSource.track();
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setReadOnly(true);
+            connection.setAutoCommit(false);
+            connection.commit();
+        }
+        assertFalse(BorrowTrackingDataSource.untrack());
+        verify(pool, never()).getConnection();
+    }
+
+    @Test
+    public void statementBorrowsTest() throws Exception {
+        BorrowTrackingDataSource.track();
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            connection.prepareStatement("SELECT 1");
+        }
+        assertTrue(BorrowTrackingDataSource.untrack());
+        verify(pool, times(1)).getConnection();
+    }
+
+    @Test
+    public void filterCountsRequestsByBorrowTest() throws Exception {
+        var registry = new SimpleMeterRegistry();
+        var filter = new ConnectionBorrowFilter(registry);
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/person/v1/1"), new MockHttpServletResponse(),
+                new MockFilterChain());
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/person/v1/2"), new MockHttpServletResponse(),
+                new MockFilterChain(new HttpServlet() {
+                    @Override
+                    protected void doGet(HttpServletRequest req, HttpServletResponse resp) {
+                        try (Connection connection = dataSource.getConnection()) {
+                            connection.createStatement();
+                        } catch (Exception e) {
+                            throw new IllegalStateException(e);
+                        }
+                    }
+                }));
+
+        assertEquals(1, registry.get(ConnectionBorrowFilter.METRIC).tag("borrowed", "false").counter().count());
+        assertEquals(1, registry.get(ConnectionBorrowFilter.METRIC).tag("borrowed", "true").counter().count());
+    }
+}
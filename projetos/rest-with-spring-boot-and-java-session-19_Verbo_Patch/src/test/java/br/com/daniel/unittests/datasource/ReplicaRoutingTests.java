@@ -0,0 +1,112 @@
+package br.com.daniel.unittests.datasource;
+
+import br.com.daniel.datasource.ReadReplicas;
+import br.com.daniel.datasource.ReadYourWritesFilter;
+import br.com.daniel.datasource.ReplicaRoutingDataSource;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ReplicaRoutingTests {
+
+    DataSource primary;
+    DataSource replica;
+    Connection primaryConnection;
+    Connection replicaConnection;
+    ReplicaRoutingDataSource routing;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        primary = mock(DataSource.class);
+        replica = mock(DataSource.class);
+        primaryConnection = mock(Connection.class);
+        replicaConnection = mock(Connection.class);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        routing = new ReplicaRoutingDataSource(primary, List.of(replica), Duration.ofMinutes(1));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        ReplicaRoutingDataSource.clear();
+    }
+
+    @Test
+    public void readOnlyTransactionsGoToTheReplicaTest() throws Exception {
+        assertSame(primaryConnection, routing.getConnection());
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertSame(replicaConnection, routing.getConnection());
+    }
+
+    @Test
+    public void readYourWritesStaysOnThePrimaryTest() throws Exception {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        ReplicaRoutingDataSource.usePrimary();
+        assertSame(primaryConnection, routing.getConnection());
+    }
+
+    @Test
+    public void unhealthyReplicaFallsBackToThePrimaryTest() throws Exception {
+        when(replica.getConnection()).thenThrow(new SQLException("Connection refused"));
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertSame(primaryConnection, routing.getConnection());
+        assertSame(primaryConnection, routing.getConnection());
+        // skipped until retryAfter instead of paying the connection timeout on every read
+        verify(replica, times(1)).getConnection();
+    }
+
+    @Test
+    public void writeSetsTheCookieAndLaterReadsUseThePrimaryTest() throws Exception {
+        var filter = new ReadYourWritesFilter();
+        ReflectionTestUtils.setField(filter, "replicas",
+                new ReadReplicas(List.of("jdbc:mysql://replica:3306/db"), "root", "root", Duration.ofSeconds(1)));
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        var write = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("PUT", "/api/person/v1"), write, new MockFilterChain());
+        assertTrue(write.getHeader(HttpHeaders.SET_COOKIE).startsWith(ReadYourWritesFilter.COOKIE + "="));
+
+        var read = new MockHttpServletRequest("GET", "/api/person/v1/1");
+        read.setCookies(write.getCookie(ReadYourWritesFilter.COOKIE));
+        assertSame(primaryConnection, connectionDuring(filter, read));
+
+        var expired = new MockHttpServletRequest("GET", "/api/person/v1/1");
+        expired.setCookies(new Cookie(ReadYourWritesFilter.COOKIE, String.valueOf(System.currentTimeMillis() - 1)));
+        assertSame(replicaConnection, connectionDuring(filter, expired));
+    }
+
+    private Connection connectionDuring(ReadYourWritesFilter filter, MockHttpServletRequest request) throws Exception {
+        Connection[] connection = new Connection[1];
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest req, HttpServletResponse resp) {
+                try {
+                    connection[0] = routing.getConnection();
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }));
+        return connection[0];
+    }
+}
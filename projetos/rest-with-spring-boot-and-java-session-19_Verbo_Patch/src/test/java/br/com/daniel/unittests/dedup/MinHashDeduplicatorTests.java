@@ -0,0 +1,94 @@
+package br.com.daniel.unittests.dedup;
+
+import br.com.daniel.dedup.Document;
+import br.com.daniel.dedup.MinHashDeduplicator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MinHashDeduplicatorTests {
+
+    ForkJoinPool pool;
+
+    @BeforeEach
+    public void setUp() {
+        pool = new ForkJoinPool(2);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    private MinHashDeduplicator deduplicator(int maxBucket) {
+        return new MinHashDeduplicator(32, 8, 0.7, maxBucket, pool);
+    }
+
+    @Test
+    public void exactDuplicatesTest() {
+        var deduplicator = deduplicator(200);
+        deduplicator.addAll(List.of(
+                new Document(1L, "Antony Lima Guarulhos - São Paulo - Brasil"),
+                new Document(2L, "Ayrton Senna São Paulo - Brasil"),
+                new Document(3L, "Antony Lima Guarulhos - São Paulo - Brasil")));
+
+        var result = deduplicator.detect();
+
+        assertEquals(3, deduplicator.size());
+        assertEquals(1, result.clusters().size());
+        assertEquals(List.of(1L, 3L), result.clusters().getFirst().ids());
+        assertEquals(1.0, result.clusters().getFirst().similarity());
+    }
+
+    @Test
+    public void nearDuplicatesTest() {
+        var deduplicator = deduplicator(200);
+        deduplicator.addAll(List.of(
+                new Document(1L, "Leonardo da Vinci Anchiano - Italy"),
+                new Document(2L, "Leonardo Da Vinci, Anchiano - Italy"),
+                new Document(3L, "Leonardo da Vinchi Anchiano - Italy"),
+                new Document(4L, "Mahatma Gandhi Porbandar - India"),
+                new Document(5L, "Nikola Tesla Smiljan - Croatia")));
+
+        var clusters = deduplicator.detect().clusters();
+
+        assertEquals(1, clusters.size());
+        assertEquals(List.of(1L, 2L, 3L), clusters.getFirst().ids());
+        assertTrue(clusters.getFirst().similarity() >= 0.7);
+    }
+
+    @Test
+    public void distinctPeopleTest() {
+        var deduplicator = deduplicator(200);
+        deduplicator.addAll(List.of(
+                new Document(1L, "Ayrton Senna São Paulo - Brasil"),
+                new Document(2L, "Mahatma Gandhi Porbandar - India"),
+                new Document(3L, "Nikola Tesla Smiljan - Croatia"),
+                new Document(4L, "Marie Curie Warsaw - Poland")));
+
+        assertTrue(deduplicator.detect().clusters().isEmpty());
+    }
+
+    @Test
+    public void oversizedBucketTest() {
+        List<Document> documents = new ArrayList<>();
+        for (long id = 1; id <= 10; id++) documents.add(new Document(id, "John Doe Springfield"));
+
+        var capped = deduplicator(5);
+        capped.addAll(documents);
+        var result = capped.detect();
+        assertEquals(0, result.candidatePairs());
+        assertTrue(result.clusters().isEmpty());
+
+        var uncapped = deduplicator(200);
+        uncapped.addAll(documents);
+        assertEquals(45, uncapped.detect().candidatePairs());
+        assertEquals(10, uncapped.detect().clusters().getFirst().ids().size());
+    }
+}
@@ -0,0 +1,116 @@
+package br.com.daniel.unittests.export;
+
+import br.com.daniel.export.FileDownload;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FileDownloadTests {
+
+    static final String ETAG = "\"job-1\"";
+
+    @TempDir
+    Path directory;
+
+    Path file;
+    MockHttpServletRequest request;
+    MockHttpServletResponse response;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        file = Files.writeString(directory.resolve("book-1.csv"), "0123456789");
+        request = new MockHttpServletRequest("GET", "/api/export/v1/1/file");
+        response = new MockHttpServletResponse();
+    }
+
+    private void send() throws Exception {
+        FileDownload.send(file, MediaType.parseMediaType("text/csv"), "book-1.csv", ETAG, request, response);
+    }
+
+    @Test
+    public void wholeFileTest() throws Exception {
+        send();
+        assertEquals(200, response.getStatus());
+        assertEquals("bytes", response.getHeader(HttpHeaders.ACCEPT_RANGES));
+        assertEquals(ETAG, response.getHeader(HttpHeaders.ETAG));
+        assertTrue(response.getHeader(HttpHeaders.CONTENT_DISPOSITION).contains("book-1.csv"));
+        assertEquals(10, response.getContentLengthLong());
+        assertEquals("0123456789", response.getContentAsString());
+    }
+
+    @Test
+    public void rangeTest() throws Exception {
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+        send();
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 2-5/10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals(4, response.getContentLengthLong());
+        assertEquals("2345", response.getContentAsString());
+    }
+
+    @Test
+    public void resumeFromOffsetTest() throws Exception {
+        request.addHeader(HttpHeaders.RANGE, "bytes=7-");
+        request.addHeader(HttpHeaders.IF_RANGE, ETAG);
+        send();
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 7-9/10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals("789", response.getContentAsString());
+    }
+
+    @Test
+    public void suffixRangeTest() throws Exception {
+        request.addHeader(HttpHeaders.RANGE, "bytes=-3");
+        send();
+        assertEquals(206, response.getStatus());
+        assertEquals("789", response.getContentAsString());
+    }
+
+    @Test
+    public void unsatisfiableRangeTest() throws Exception {
+        request.addHeader(HttpHeaders.RANGE, "bytes=10-");
+        send();
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals("", response.getContentAsString());
+    }
+
+    @Test
+    public void staleIfRangeGetsWholeFileTest() throws Exception {
+        request.addHeader(HttpHeaders.RANGE, "bytes=7-");
+        request.addHeader(HttpHeaders.IF_RANGE, "\"job-0\"");
+        send();
+        assertEquals(200, response.getStatus());
+        assertEquals("0123456789", response.getContentAsString());
+    }
+
+    @Test
+    public void malformedRangeGetsWholeFileTest() throws Exception {
+        request.addHeader(HttpHeaders.RANGE, "lines=1-2");
+        send();
+        assertEquals(200, response.getStatus());
+        assertEquals("0123456789", response.getContentAsString());
+    }
+
+    @Test
+    public void sendfileTest() throws Exception {
+        request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+        send();
+        assertEquals(206, response.getStatus());
+        assertEquals(file.toAbsolutePath().toString(), request.getAttribute("org.apache.tomcat.sendfile.filename"));
+        assertEquals(2L, request.getAttribute("org.apache.tomcat.sendfile.start"));
+        assertEquals(6L, request.getAttribute("org.apache.tomcat.sendfile.end"));
+        assertEquals(4, response.getContentLengthLong());
+        assertEquals("", response.getContentAsString());
+    }
+}
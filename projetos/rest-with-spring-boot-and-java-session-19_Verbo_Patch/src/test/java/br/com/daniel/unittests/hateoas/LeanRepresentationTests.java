@@ -0,0 +1,57 @@
+package br.com.daniel.unittests.hateoas;
+
+import br.com.daniel.data.dto.PersonDTO;
+import br.com.daniel.hateoas.LeanRepresentation;
+import br.com.daniel.services.PersonServices;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LeanRepresentationTests {
+
+    @AfterEach
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    public void detectsLeanProfileTest() {
+        assertTrue(LeanRepresentation.isLean("application/json;profile=lean"));
+        assertTrue(LeanRepresentation.isLean("application/xml;profile=lean"));
+        assertTrue(LeanRepresentation.isLean("application/hal+json;q=0.5, application/json;profile=lean"));
+        assertFalse(LeanRepresentation.isLean("application/hal+json, application/json;profile=lean;q=0.5"));
+        assertFalse(LeanRepresentation.isLean("application/json"));
+        assertFalse(LeanRepresentation.isLean("not a media type"));
+        assertFalse(LeanRepresentation.isLean(null));
+    }
+
+    @Test
+    public void skipsLinksForLeanRequestTest() {
+        var request = new MockHttpServletRequest("GET", "/api/person/v1/1");
+        request.addHeader(HttpHeaders.ACCEPT, "application/json;profile=lean");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        var dto = new PersonDTO();
+        dto.setId(1L);
+        PersonServices.addHateosLinks(dto);
+        assertTrue(dto.getLinks().isEmpty());
+    }
+
+    @Test
+    public void keepsLinksForHalRequestTest() {
+        var request = new MockHttpServletRequest("GET", "/api/person/v1/1");
+        request.addHeader(HttpHeaders.ACCEPT, "application/hal+json");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        var dto = new PersonDTO();
+        dto.setId(1L);
+        PersonServices.addHateosLinks(dto);
+        assertFalse(dto.getLinks().isEmpty());
+        assertFalse(LeanRepresentation.requested());
+    }
+}
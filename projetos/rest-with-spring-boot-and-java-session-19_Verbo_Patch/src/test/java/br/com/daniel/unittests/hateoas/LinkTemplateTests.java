@@ -0,0 +1,47 @@
+package br.com.daniel.unittests.hateoas;
+
+import br.com.daniel.controllers.BookController;
+import br.com.daniel.controllers.PersonController;
+import br.com.daniel.hateoas.LinkTemplate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.hateoas.Link;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class LinkTemplateTests {
+
+    @AfterEach
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    public void resolvesControllerRouteTest() {
+        assertEquals("/api/person/v1", LinkTemplate.of(PersonController.class).path());
+        assertEquals("/api/book/v1", LinkTemplate.of(BookController.class).path());
+    }
+
+    @Test
+    public void relativeLinksOutsideRequestTest() {
+        Link link = LinkTemplate.of(PersonController.class).item(7L, "self", "GET");
+        assertEquals("/api/person/v1/7", link.getHref());
+        assertEquals("self", link.getRel().value());
+        assertEquals("GET", link.getType());
+    }
+
+    @Test
+    public void absoluteLinksInsideRequestTest() {
+        var request = new MockHttpServletRequest("GET", "/api/book/v1/3");
+        request.setServerName("api.erudio.com.br");
+        request.setServerPort(8080);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        var links = LinkTemplate.of(BookController.class);
+        assertEquals("http://api.erudio.com.br:8080/api/book/v1", links.collection("findAll", "GET").getHref());
+        assertEquals("http://api.erudio.com.br:8080/api/book/v1/3", links.item(3L, "delete", "DELETE").getHref());
+    }
+}
@@ -1,23 +1,30 @@
 package br.com.daniel.unittests.mapper;
 
+import br.com.daniel.data.dto.BookDTO;
 import br.com.daniel.data.dto.PersonDTO;
+import br.com.daniel.model.Book;
 import br.com.daniel.model.Person;
+import br.com.daniel.unittests.mapper.mocks.MockBook;
 import br.com.daniel.unittests.mapper.mocks.MockPerson;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static br.com.daniel.mapper.ObjectMapper.parseListObjects;
 import static br.com.daniel.mapper.ObjectMapper.parseObject;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 public class ObjectMapperTests {
     MockPerson inputObject;
+    MockBook inputBook;
 
     @BeforeEach
     public void setUp() {
         inputObject = new MockPerson();
+        inputBook = new MockBook();
     }
 
     @Test
@@ -95,4 +102,46 @@ public class ObjectMapperTests {
         assertEquals("Address Test12", outputTwelve.getAddress());
         assertEquals("Male", outputTwelve.getGender());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void parseEntityListToDTOListInParallelTest() {
+        List<Person> entities = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            entities.add(inputObject.mockEntity(i));
+        }
+        List<PersonDTO> outputList = parseListObjects(entities, PersonDTO.class, true);
+
+        assertEquals(5000, outputList.size());
+        for (int i = 0; i < outputList.size(); i++) {
+            assertEquals(Long.valueOf(i), outputList.get(i).getId());
+            assertEquals("First Name Test" + i, outputList.get(i).getFirstName());
+        }
+    }
+
+    @Test
+    public void parseBookEntityToDTOTest() {
+        Book book = inputBook.mockEntity(3);
+        BookDTO output = parseObject(book, BookDTO.class);
+        assertEquals(Long.valueOf(3L), output.getId());
+        assertEquals("Author Test3", output.getAuthor());
+        assertEquals("Title Test3", output.getTitle());
+        assertEquals(7.5, output.getPrice());
+        assertEquals(book.getLaunchDate(), output.getLaunchDate());
+    }
+
+    @Test
+    public void parseBookDTOToEntityTest() {
+        BookDTO book = inputBook.mockDTO(3);
+        Book output = parseObject(book, Book.class);
+        assertEquals(Long.valueOf(3L), output.getId());
+        assertEquals("Author Test3", output.getAuthor());
+        assertEquals("Title Test3", output.getTitle());
+        assertEquals(7.5, output.getPrice());
+        assertEquals(book.getLaunchDate(), output.getLaunchDate());
+    }
+
+    @Test
+    public void parseUnsupportedPairTest() {
+        assertThrows(IllegalArgumentException.class, () -> parseObject(inputObject.mockEntity(), Book.class));
+    }
+}
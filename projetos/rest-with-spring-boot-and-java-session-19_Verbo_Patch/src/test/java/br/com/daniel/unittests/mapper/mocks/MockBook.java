@@ -9,6 +9,8 @@ import java.util.List;
 
 public class MockBook {
 
+    // fixed date so an entity and a DTO built from the same number are equal
+    private static final Date LAUNCH_DATE = new Date(1700000000000L);
 
     public Book mockEntity() {
         return mockEntity(0);
@@ -38,7 +40,7 @@ public class MockBook {
         Book book = new Book();
         book.setAuthor("Author Test" + number);
         book.setId(number.longValue());
-        book.setLaunchDate(new Date());
+        book.setLaunchDate(LAUNCH_DATE);
         book.setPrice(number * 2.5);
         book.setTitle("Title Test" + number);
         return book;
@@ -48,7 +50,7 @@ public class MockBook {
         BookDTO book = new BookDTO();
         book.setAuthor("Author Test" + number);
         book.setId(number.longValue());
-        book.setLaunchDate(new Date());
+        book.setLaunchDate(LAUNCH_DATE);
         book.setPrice(number * 2.5);
         book.setTitle("Title Test" + number);
         return book;
@@ -0,0 +1,100 @@
+package br.com.daniel.unittests.serialization;
+
+import br.com.daniel.exception.InvalidPatchException;
+import br.com.daniel.exception.PreconditionFailedException;
+import br.com.daniel.repository.BookRepositoryCustom;
+import br.com.daniel.repository.PersonRepositoryCustom;
+import br.com.daniel.serialization.patch.JsonPatches;
+import br.com.daniel.unittests.mapper.mocks.MockBook;
+import br.com.daniel.unittests.mapper.mocks.MockPerson;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static br.com.daniel.serialization.patch.JsonPatches.JSON_PATCH_JSON_VALUE;
+import static br.com.daniel.serialization.patch.JsonPatches.MERGE_PATCH_JSON_VALUE;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JsonPatchesTests {
+
+    JsonPatches patches;
+    MockPerson people;
+    MockBook books;
+
+    @BeforeEach
+    public void setUp() {
+        patches = new JsonPatches();
+        people = new MockPerson();
+        books = new MockBook();
+    }
+
+    private Map<String, Object> personChanges(String patch, String contentType) throws Exception {
+        return patches.changes(people.mockDTO(1), json(patch), contentType,
+                PersonRepositoryCustom.PATCHABLE_COLUMNS.keySet(), PersonRepositoryCustom.REQUIRED);
+    }
+
+    private static JsonNode json(String json) throws Exception {
+        return new ObjectMapper().readTree(json);
+    }
+
+    @Test
+    public void mergePatchReturnsOnlyChangedPropertiesTest() throws Exception {
+        var changes = personChanges("{\"address\": \"New Address\", \"firstName\": \"First Name Test1\"}", MERGE_PATCH_JSON_VALUE);
+        assertEquals(Map.of("address", "New Address"), changes);
+    }
+
+    @Test
+    public void mergePatchWithNothingChangedTest() throws Exception {
+        assertTrue(personChanges("{\"id\": 1, \"gender\": \"Female\"}", MERGE_PATCH_JSON_VALUE).isEmpty());
+    }
+
+    @Test
+    public void mergePatchCantRemoveRequiredPropertyTest() {
+        assertThrows(InvalidPatchException.class, () -> personChanges("{\"address\": null}", MERGE_PATCH_JSON_VALUE));
+    }
+
+    @Test
+    public void mergePatchRemovesOptionalPropertyTest() throws Exception {
+        var changes = patches.changes(books.mockDTO(1), json("{\"author\": null}"), MERGE_PATCH_JSON_VALUE,
+                BookRepositoryCustom.PATCHABLE_COLUMNS.keySet(), BookRepositoryCustom.REQUIRED);
+        assertTrue(changes.containsKey("author"));
+        assertNull(changes.get("author"));
+    }
+
+    @Test
+    public void dateComparedByValueTest() throws Exception {
+        var changes = patches.changes(books.mockDTO(1), json("{\"launchDate\": 1700000000000, \"price\": 3.0}"),
+                MERGE_PATCH_JSON_VALUE, BookRepositoryCustom.PATCHABLE_COLUMNS.keySet(), BookRepositoryCustom.REQUIRED);
+        assertEquals(Map.of("price", 3.0), changes);
+    }
+
+    @Test
+    public void jsonPatchOperationsTest() throws Exception {
+        var changes = personChanges("[" +
+                "{\"op\": \"test\", \"path\": \"/id\", \"value\": 1}," +
+                "{\"op\": \"replace\", \"path\": \"/lastName\", \"value\": \"Changed\"}," +
+                "{\"op\": \"copy\", \"from\": \"/lastName\", \"path\": \"/firstName\"}" +
+                "]", JSON_PATCH_JSON_VALUE);
+        assertEquals(Map.of("firstName", "Changed", "lastName", "Changed"), changes);
+    }
+
+    @Test
+    public void jsonPatchFailedTestTest() {
+        assertThrows(PreconditionFailedException.class, () -> personChanges(
+                "[{\"op\": \"test\", \"path\": \"/gender\", \"value\": \"Male\"}]", JSON_PATCH_JSON_VALUE));
+    }
+
+    @Test
+    public void invalidPatchesTest() {
+        assertThrows(InvalidPatchException.class, () -> personChanges("{\"id\": 2}", MERGE_PATCH_JSON_VALUE));
+        assertThrows(InvalidPatchException.class, () -> personChanges("{\"version\": 9}", MERGE_PATCH_JSON_VALUE));
+        assertThrows(InvalidPatchException.class, () -> personChanges("{\"op\": \"add\"}", JSON_PATCH_JSON_VALUE));
+        assertThrows(InvalidPatchException.class, () -> personChanges(
+                "[{\"op\": \"remove\", \"path\": \"/nickname\"}]", JSON_PATCH_JSON_VALUE));
+        assertThrows(InvalidPatchException.class, () -> personChanges(
+                "[{\"op\": \"replace\", \"path\": \"/enabled\", \"value\": \"maybe\"}]", JSON_PATCH_JSON_VALUE));
+    }
+}
@@ -0,0 +1,123 @@
+package br.com.daniel.unittests.serialization;
+
+import br.com.daniel.data.dto.BookDTO;
+import br.com.daniel.data.dto.PersonDTO;
+import br.com.daniel.serialization.streaming.StreamingWriter;
+import br.com.daniel.serialization.streaming.StreamingWriterFactory;
+import br.com.daniel.services.BookServices;
+import br.com.daniel.unittests.mapper.mocks.MockBook;
+import br.com.daniel.unittests.mapper.mocks.MockPerson;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.hateoas.Link;
+import org.springframework.http.MediaType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StreamingWriterFactoryTests {
+
+    StreamingWriterFactory factory;
+    MockPerson input;
+
+    @BeforeEach
+    public void setUp() {
+        factory = new StreamingWriterFactory();
+        input = new MockPerson();
+    }
+
+    private String write(MediaType mediaType) throws IOException {
+        var out = new ByteArrayOutputStream();
+        try (StreamingWriter writer = factory.open(mediaType, out)) {
+            for (int i = 0; i < 3; i++) {
+                PersonDTO dto = input.mockDTO(i);
+                dto.add(Link.of("/api/person/v1/" + i));
+                writer.write(dto);
+            }
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void negotiateTest() {
+        assertEquals(MediaType.APPLICATION_JSON, factory.negotiate(List.of(MediaType.ALL)));
+        assertEquals(MediaType.APPLICATION_XML, factory.negotiate(MediaType.parseMediaTypes("application/json;q=0.5, application/xml")));
+        assertEquals(MediaType.APPLICATION_YAML, factory.negotiate(List.of(MediaType.APPLICATION_YAML)));
+        assertEquals(MediaType.APPLICATION_NDJSON, factory.negotiate(List.of(MediaType.APPLICATION_NDJSON)));
+    }
+
+    @Test
+    public void writeJsonArrayTest() throws IOException {
+        String json = write(MediaType.APPLICATION_JSON);
+        assertTrue(json.startsWith("[{"));
+        assertTrue(json.endsWith("}]"));
+        assertTrue(json.contains("\"firstName\":\"First Name Test2\""));
+        assertTrue(json.contains("\"_links\":{\"self\":{\"href\":\"/api/person/v1/1\"}}"));
+    }
+
+    @Test
+    public void writeNdjsonTest() throws IOException {
+        String[] lines = write(MediaType.APPLICATION_NDJSON).split("\n");
+        assertEquals(3, lines.length);
+        assertTrue(lines[1].startsWith("{\"id\":1,"));
+    }
+
+    @Test
+    public void writeXmlTest() throws IOException {
+        String xml = write(MediaType.APPLICATION_XML);
+        assertTrue(xml.startsWith("<List><item>"));
+        assertTrue(xml.endsWith("</item></List>"));
+        assertEquals(3, xml.split("<item>").length - 1);
+    }
+
+    @Test
+    public void writeYamlTest() throws IOException {
+        String yaml = write(MediaType.APPLICATION_YAML);
+        assertTrue(yaml.contains("- id: 0"));
+        assertTrue(yaml.contains("- id: 2"));
+    }
+
+    @Test
+    public void readArrayAndNdjsonTest() throws IOException {
+        String array = "[{\"id\":1,\"firstName\":\"Ayrton\"},{\"id\":2,\"firstName\":\"Alain\"}]";
+        String ndjson = "{\"id\":1,\"firstName\":\"Ayrton\"}\n{\"id\":2,\"firstName\":\"Alain\"}\n";
+        for (String body : List.of(array, ndjson)) {
+            try (var people = factory.readValues(PersonDTO.class,
+                    new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)))) {
+                List<PersonDTO> read = people.readAll();
+                assertEquals(2, read.size());
+                assertEquals("Alain", read.get(1).getFirstName());
+            }
+        }
+    }
+
+    @Test
+    public void csvRoundTripTest() throws IOException {
+        var books = new MockBook();
+        var out = new ByteArrayOutputStream();
+        try (StreamingWriter writer = factory.openCsv(BookServices.CSV_COLUMNS, out)) {
+            for (int i = 1; i <= 2; i++) {
+                BookDTO dto = books.mockDTO(i);
+                dto.add(Link.of("/api/book/v1/" + i));
+                writer.write(dto);
+            }
+        }
+        String csv = out.toString(StandardCharsets.UTF_8);
+        assertTrue(csv.startsWith("id,author,launchDate,price,title\n1,Author Test1,2023-11-14T22:13:20.000+00:00,2.5,Title Test1\n"));
+        assertFalse(csv.contains("/api/book/v1"));
+
+        try (var read = factory.readCsv(BookDTO.class, new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)))) {
+            List<BookDTO> rows = read.readAll();
+            assertEquals(2, rows.size());
+            assertEquals(books.mockDTO(2).getLaunchDate(), rows.get(1).getLaunchDate());
+            assertEquals(5.0, rows.get(1).getPrice());
+        }
+    }
+}
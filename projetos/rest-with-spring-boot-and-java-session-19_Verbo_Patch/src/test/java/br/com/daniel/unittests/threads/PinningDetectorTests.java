@@ -0,0 +1,86 @@
+package br.com.daniel.unittests.threads;
+
+import br.com.daniel.threads.PinningDetector;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PinningDetectorTests {
+
+    SimpleMeterRegistry registry;
+    PinningDetector detector;
+
+    @BeforeEach
+    public void setUp() {
+        registry = new SimpleMeterRegistry();
+        detector = new PinningDetector(registry, Duration.ofMillis(10));
+        detector.start();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        detector.stop();
+    }
+
+    private long pinned() {
+        return registry.get("jvm.threads.virtual.pinned").timer().count();
+    }
+
+    // JFR hands events over about once a second
+    private long awaitPinned(long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (pinned() < expected && System.nanoTime() < deadline) Thread.sleep(100);
+        return pinned();
+    }
+
+    @Test
+    public void sleepInsideSynchronizedTest() throws Exception {
+        Object monitor = new Object();
+        Thread.ofVirtual().start(() -> {
+            synchronized (monitor) {
+                sleep(50);
+            }
+        }).join();
+
+        assertEquals(1, awaitPinned(1));
+        assertTrue(detector.isRunning());
+    }
+
+    @Test
+    public void sleepInsideLockTest() throws Exception {
+        var lock = new ReentrantLock();
+        Thread.ofVirtual().start(() -> {
+            lock.lock();
+            try {
+                sleep(50);
+            } finally {
+                lock.unlock();
+            }
+        }).join();
+        Object monitor = new Object();
+        Thread.ofVirtual().start(() -> {
+            synchronized (monitor) {
+                sleep(50);
+            }
+        }).join();
+
+        // only the synchronized one is reported
+        assertEquals(1, awaitPinned(1));
+        Thread.sleep(1500);
+        assertEquals(1, pinned());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}